@@ -2,6 +2,11 @@ package com.yunting.config;
 
 import com.huaweicloud.sdk.core.auth.BasicCredentials;
 import com.huaweicloud.sdk.core.auth.ICredential;
+import com.huaweicloud.sdk.core.http.HttpConfig;
+import com.huaweicloud.sdk.metastudio.v1.MetaStudioClient;
+import com.huaweicloud.sdk.metastudio.v1.region.MetaStudioRegion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,6 +17,8 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class HuaweiCloudConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(HuaweiCloudConfig.class);
+
     @Value("${huaweicloud.ak:}")
     private String ak;
 
@@ -27,6 +34,9 @@ public class HuaweiCloudConfig {
     @Value("${app.callback.url:}")
     private String callbackUrl;
 
+    @Value("${huaweicloud.metastudio.http-timeout:30}")
+    private int metaStudioHttpTimeout;
+
     /**
      * 创建华为云认证凭证
      * 可通过环境变量 HUAWEICLOUD_SDK_AK 和 HUAWEICLOUD_SDK_SK 配置
@@ -44,6 +54,25 @@ public class HuaweiCloudConfig {
         return credentials;
     }
 
+    /**
+     * 创建共享的 MetaStudio 客户端
+     * 客户端线程安全，内部维护 HTTP 连接池并复用长连接，
+     * TTS 合成、自定义读法等所有 MetaStudio 调用共用这一个实例，避免每次调用重复创建客户端和 TLS 握手
+     */
+    @Bean
+    public MetaStudioClient metaStudioClient(ICredential huaweiCloudCredential) {
+        HttpConfig httpConfig = HttpConfig.getDefaultHttpConfig()
+                .withTimeout(metaStudioHttpTimeout);
+
+        MetaStudioClient client = MetaStudioClient.newBuilder()
+                .withHttpConfig(httpConfig)
+                .withCredential(huaweiCloudCredential)
+                .withRegion(MetaStudioRegion.valueOf(region))
+                .build();
+        logger.info("MetaStudio 客户端初始化成功，区域: {}, 超时: {}秒", region, metaStudioHttpTimeout);
+        return client;
+    }
+
     /**
      * 获取配置的区域
      */
@@ -31,6 +31,9 @@ public class RocketMQConfig {
     @Value("${rocketmq.tts-callback.message-group:TTS_CALLBACK_ORDERED}")
     private String ttsCallbackMessageGroup;
     
+    @Value("${rocketmq.tts-callback.consumption-thread-count:4}")
+    private int ttsCallbackConsumptionThreadCount;
+    
     @Value("${rocketmq.tts-synthesis.consumer-group}")
     private String ttsSynthesisConsumerGroup;
     
@@ -95,6 +98,13 @@ public class RocketMQConfig {
         return ttsCallbackMessageGroup;
     }
     
+    /**
+     * 获取 TTS 回调消费线程数
+     */
+    public int getTtsCallbackConsumptionThreadCount() {
+        return ttsCallbackConsumptionThreadCount;
+    }
+    
     /**
      * 获取 TTS 合成请求 Consumer Group
      */
@@ -0,0 +1,51 @@
+package com.yunting.constant;
+
+/**
+ * 合并音频输出格式
+ */
+public final class AudioOutputFormat {
+
+    private AudioOutputFormat() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 16 位 PCM WAV，不压缩（默认）
+     */
+    public static final String WAV = "wav";
+
+    /**
+     * MP3（libmp3lame）
+     */
+    public static final String MP3 = "mp3";
+
+    /**
+     * AAC，封装为 m4a
+     */
+    public static final String AAC = "aac";
+
+    /**
+     * Opus，封装为 ogg
+     */
+    public static final String OPUS = "opus";
+
+    /**
+     * 压缩格式允许的码率范围（kbps）
+     */
+    public static final int MIN_BITRATE_KBPS = 16;
+    public static final int MAX_BITRATE_KBPS = 320;
+
+    /**
+     * 未指定码率时的默认值（kbps），按语音内容取值
+     */
+    public static int defaultBitrateKbps(String format) {
+        if (OPUS.equals(format)) {
+            return 32;
+        }
+        return 64;
+    }
+
+    public static boolean isSupported(String format) {
+        return WAV.equals(format) || MP3.equals(format) || AAC.equals(format) || OPUS.equals(format);
+    }
+}
@@ -0,0 +1,22 @@
+package com.yunting.constant;
+
+/**
+ * 合成请求调度优先级
+ * TtsSynthesisConsumer 按优先级把请求分到不同通道，交互通道按权重优先调度
+ */
+public final class SynthesisPriority {
+
+    private SynthesisPriority() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 交互：编辑者单句/单个拆句的重新合成，需要尽快开始
+     */
+    public static final int INTERACTIVE = 0;
+
+    /**
+     * 批量：整个任务的合成
+     */
+    public static final int BULK = 1;
+}
@@ -48,6 +48,11 @@ public final class SynthesisStatus {
          */
         public static final String PROCESSING = "合成中";
 
+        /**
+         * 已合成（命中合成结果缓存）
+         */
+        public static final String COMPLETED = "已合成";
+
         /**
          * 合成失败
          */
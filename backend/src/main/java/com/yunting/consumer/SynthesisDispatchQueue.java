@@ -0,0 +1,419 @@
+package com.yunting.consumer;
+
+import com.yunting.constant.SynthesisPriority;
+import com.yunting.dto.synthesis.TtsSynthesisRequest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * TTS合成请求分发队列
+ * 按优先级分为交互、批量两个通道，两个通道都有请求时按权重调度：
+ * 每调度 interactiveWeight 个交互请求后至少调度一个批量请求，批量任务不会被饿死；
+ * 交互请求只需等待当前正在处理的一个请求，排队时间与批量积压的长度无关。
+ * 每个通道内按任务轮转调度，每个任务每轮最多连续调度 taskQuantum 个请求，
+ * 大任务不会让其他任务一直排队；同一任务内按断句序号调度
+ */
+public class SynthesisDispatchQueue {
+
+    /**
+     * 调度通道
+     */
+    public enum Lane {
+        INTERACTIVE,
+        BULK
+    }
+
+    private final int interactiveWeight;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final TaskRoundRobin interactiveLane;
+    private final TaskRoundRobin bulkLane;
+    private final LaneMetrics interactiveMetrics = new LaneMetrics();
+    private final LaneMetrics bulkMetrics = new LaneMetrics();
+    private int interactiveCredit;
+    private long arrivalSeq;
+
+    /**
+     * @param interactiveWeight 两个通道都有请求时，每调度一个批量请求前最多连续调度的交互请求数
+     * @param taskQuantum 通道内轮转时，每个任务每轮最多连续调度的请求数
+     */
+    public SynthesisDispatchQueue(int interactiveWeight, int taskQuantum) {
+        if (interactiveWeight <= 0) {
+            throw new IllegalArgumentException("interactiveWeight必须大于0");
+        }
+        if (taskQuantum <= 0) {
+            throw new IllegalArgumentException("taskQuantum必须大于0");
+        }
+        this.interactiveWeight = interactiveWeight;
+        this.interactiveCredit = interactiveWeight;
+        this.interactiveLane = new TaskRoundRobin(Lane.INTERACTIVE, taskQuantum);
+        this.bulkLane = new TaskRoundRobin(Lane.BULK, taskQuantum);
+    }
+
+    /**
+     * 按请求的优先级放入对应通道
+     */
+    public void offer(TtsSynthesisRequest request) {
+        Lane lane = laneOf(request);
+        lock.lock();
+        try {
+            laneQueue(lane).add(new Entry(request, System.nanoTime(), arrivalSeq++));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按权重取出下一个请求，队列为空时阻塞等待
+     *
+     * @throws InterruptedException 等待被中断
+     */
+    public TtsSynthesisRequest take() throws InterruptedException {
+        Entry entry;
+        Lane lane;
+        lock.lockInterruptibly();
+        try {
+            while (interactiveLane.isEmpty() && bulkLane.isEmpty()) {
+                notEmpty.await();
+            }
+            if (!interactiveLane.isEmpty() && (bulkLane.isEmpty() || interactiveCredit > 0)) {
+                lane = Lane.INTERACTIVE;
+                entry = interactiveLane.poll();
+                // 没有批量请求在等待时不消耗额度
+                if (!bulkLane.isEmpty()) {
+                    interactiveCredit--;
+                }
+            } else {
+                lane = Lane.BULK;
+                entry = bulkLane.poll();
+                interactiveCredit = interactiveWeight;
+            }
+        } finally {
+            lock.unlock();
+        }
+        metricsOf(lane).recordDispatch(System.nanoTime() - entry.enqueueNanos);
+        return entry.request;
+    }
+
+    public int size(Lane lane) {
+        lock.lock();
+        try {
+            return laneQueue(lane).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 各通道及各任务的排队统计
+     */
+    public Stats getStats() {
+        Stats stats = new Stats();
+        long now = System.nanoTime();
+        List<TaskQueueStats> tasks = new ArrayList<>();
+        lock.lock();
+        try {
+            stats.setInteractiveQueued(interactiveLane.size());
+            stats.setBulkQueued(bulkLane.size());
+            interactiveLane.collectStats(now, tasks);
+            bulkLane.collectStats(now, tasks);
+        } finally {
+            lock.unlock();
+        }
+        stats.setInteractiveWeight(interactiveWeight);
+        stats.setInteractiveDispatched(interactiveMetrics.dispatchedCount.sum());
+        stats.setInteractiveAvgWaitMs(interactiveMetrics.avgWaitMs());
+        stats.setInteractiveMaxWaitMs(interactiveMetrics.maxWaitMs());
+        stats.setBulkDispatched(bulkMetrics.dispatchedCount.sum());
+        stats.setBulkAvgWaitMs(bulkMetrics.avgWaitMs());
+        stats.setBulkMaxWaitMs(bulkMetrics.maxWaitMs());
+        stats.setTasks(tasks);
+        return stats;
+    }
+
+    private static Lane laneOf(TtsSynthesisRequest request) {
+        Integer priority = request.getPriority();
+        return priority != null && priority == SynthesisPriority.INTERACTIVE ? Lane.INTERACTIVE : Lane.BULK;
+    }
+
+    private TaskRoundRobin laneQueue(Lane lane) {
+        return lane == Lane.INTERACTIVE ? interactiveLane : bulkLane;
+    }
+
+    private LaneMetrics metricsOf(Lane lane) {
+        return lane == Lane.INTERACTIVE ? interactiveMetrics : bulkMetrics;
+    }
+
+    private static final class Entry {
+        // 同一任务内先按断句序号，再按到达顺序
+        private static final Comparator<Entry> ORDER = Comparator
+                .comparing((Entry entry) -> entry.request.getSequence(), Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingLong(entry -> entry.arrivalSeq);
+
+        private final TtsSynthesisRequest request;
+        private final long enqueueNanos;
+        private final long arrivalSeq;
+
+        Entry(TtsSynthesisRequest request, long enqueueNanos, long arrivalSeq) {
+            this.request = request;
+            this.enqueueNanos = enqueueNanos;
+            this.arrivalSeq = arrivalSeq;
+        }
+    }
+
+    /**
+     * 单个通道：按任务轮转，调用方负责加锁
+     */
+    private static final class TaskRoundRobin {
+        private final Lane lane;
+        private final int taskQuantum;
+        private final Map<Long, TaskQueue> tasks = new HashMap<>();
+        private final Deque<TaskQueue> ring = new ArrayDeque<>();
+        private int size;
+
+        TaskRoundRobin(Lane lane, int taskQuantum) {
+            this.lane = lane;
+            this.taskQuantum = taskQuantum;
+        }
+
+        void add(Entry entry) {
+            Long taskId = entry.request.getTaskId();
+            TaskQueue taskQueue = tasks.get(taskId);
+            if (taskQueue == null) {
+                taskQueue = new TaskQueue(taskId);
+                tasks.put(taskId, taskQueue);
+                ring.addLast(taskQueue);
+            }
+            taskQueue.entries.add(entry);
+            size++;
+        }
+
+        Entry poll() {
+            TaskQueue taskQueue = ring.peekFirst();
+            if (taskQueue == null) {
+                return null;
+            }
+            Entry entry = taskQueue.entries.poll();
+            size--;
+            taskQueue.dispatchedInTurn++;
+            if (taskQueue.entries.isEmpty()) {
+                // 任务的请求已全部调度，移出轮转，之后有新请求时重新排到队尾
+                ring.pollFirst();
+                tasks.remove(taskQueue.taskId);
+            } else if (taskQueue.dispatchedInTurn >= taskQuantum) {
+                ring.pollFirst();
+                taskQueue.dispatchedInTurn = 0;
+                ring.addLast(taskQueue);
+            }
+            return entry;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void collectStats(long now, List<TaskQueueStats> result) {
+            for (TaskQueue taskQueue : ring) {
+                long oldestEnqueueNanos = now;
+                for (Entry entry : taskQueue.entries) {
+                    oldestEnqueueNanos = Math.min(oldestEnqueueNanos, entry.enqueueNanos);
+                }
+                TaskQueueStats stats = new TaskQueueStats();
+                stats.setTaskId(taskQueue.taskId);
+                stats.setLane(lane.name());
+                stats.setQueued(taskQueue.entries.size());
+                stats.setOldestWaitMs(TimeUnit.NANOSECONDS.toMillis(now - oldestEnqueueNanos));
+                result.add(stats);
+            }
+        }
+    }
+
+    /**
+     * 单个任务的待调度请求，请求全部调度后即被移除，不保存累计数据
+     */
+    private static final class TaskQueue {
+        private final Long taskId;
+        private final PriorityQueue<Entry> entries = new PriorityQueue<>(Entry.ORDER);
+        private int dispatchedInTurn;
+
+        TaskQueue(Long taskId) {
+            this.taskId = taskId;
+        }
+    }
+
+    private static final class LaneMetrics {
+        private final LongAdder dispatchedCount = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        void recordDispatch(long waitNanos) {
+            dispatchedCount.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+
+        long avgWaitMs() {
+            long count = dispatchedCount.sum();
+            return count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / count) : 0;
+        }
+
+        long maxWaitMs() {
+            return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+        }
+    }
+
+    /**
+     * 分发队列统计信息
+     */
+    public static class Stats {
+        private int interactiveWeight;
+        private int interactiveQueued;
+        private long interactiveDispatched;
+        private long interactiveAvgWaitMs;
+        private long interactiveMaxWaitMs;
+        private int bulkQueued;
+        private long bulkDispatched;
+        private long bulkAvgWaitMs;
+        private long bulkMaxWaitMs;
+        private List<TaskQueueStats> tasks;
+
+        public int getInteractiveWeight() {
+            return interactiveWeight;
+        }
+
+        public void setInteractiveWeight(int interactiveWeight) {
+            this.interactiveWeight = interactiveWeight;
+        }
+
+        public int getInteractiveQueued() {
+            return interactiveQueued;
+        }
+
+        public void setInteractiveQueued(int interactiveQueued) {
+            this.interactiveQueued = interactiveQueued;
+        }
+
+        public long getInteractiveDispatched() {
+            return interactiveDispatched;
+        }
+
+        public void setInteractiveDispatched(long interactiveDispatched) {
+            this.interactiveDispatched = interactiveDispatched;
+        }
+
+        public long getInteractiveAvgWaitMs() {
+            return interactiveAvgWaitMs;
+        }
+
+        public void setInteractiveAvgWaitMs(long interactiveAvgWaitMs) {
+            this.interactiveAvgWaitMs = interactiveAvgWaitMs;
+        }
+
+        public long getInteractiveMaxWaitMs() {
+            return interactiveMaxWaitMs;
+        }
+
+        public void setInteractiveMaxWaitMs(long interactiveMaxWaitMs) {
+            this.interactiveMaxWaitMs = interactiveMaxWaitMs;
+        }
+
+        public int getBulkQueued() {
+            return bulkQueued;
+        }
+
+        public void setBulkQueued(int bulkQueued) {
+            this.bulkQueued = bulkQueued;
+        }
+
+        public long getBulkDispatched() {
+            return bulkDispatched;
+        }
+
+        public void setBulkDispatched(long bulkDispatched) {
+            this.bulkDispatched = bulkDispatched;
+        }
+
+        public long getBulkAvgWaitMs() {
+            return bulkAvgWaitMs;
+        }
+
+        public void setBulkAvgWaitMs(long bulkAvgWaitMs) {
+            this.bulkAvgWaitMs = bulkAvgWaitMs;
+        }
+
+        public long getBulkMaxWaitMs() {
+            return bulkMaxWaitMs;
+        }
+
+        public void setBulkMaxWaitMs(long bulkMaxWaitMs) {
+            this.bulkMaxWaitMs = bulkMaxWaitMs;
+        }
+
+        public List<TaskQueueStats> getTasks() {
+            return tasks;
+        }
+
+        public void setTasks(List<TaskQueueStats> tasks) {
+            this.tasks = tasks;
+        }
+    }
+
+    /**
+     * 单个任务的排队统计
+     */
+    public static class TaskQueueStats {
+        private Long taskId;
+        private String lane;
+        private int queued;
+        private long oldestWaitMs;
+
+        public Long getTaskId() {
+            return taskId;
+        }
+
+        public void setTaskId(Long taskId) {
+            this.taskId = taskId;
+        }
+
+        public String getLane() {
+            return lane;
+        }
+
+        public void setLane(String lane) {
+            this.lane = lane;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public void setQueued(int queued) {
+            this.queued = queued;
+        }
+
+        public long getOldestWaitMs() {
+            return oldestWaitMs;
+        }
+
+        public void setOldestWaitMs(long oldestWaitMs) {
+            this.oldestWaitMs = oldestWaitMs;
+        }
+    }
+}
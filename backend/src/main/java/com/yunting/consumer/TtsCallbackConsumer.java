@@ -24,7 +24,8 @@ import java.util.Collections;
 
 /**
  * TTS回调消息消费者（顺序消息）
- * 从RocketMQ消费TTS回调消息，使用顺序消息模式，确保所有回调消息按全局顺序处理
+ * 从RocketMQ消费TTS回调消息，回调消息按任务分片到多个消息组：
+ * 同一消息组内按顺序处理（同一断句的状态变化不会乱序），不同消息组由多个消费线程并行下载、上传
  */
 @Component
 public class TtsCallbackConsumer {
@@ -72,18 +73,20 @@ public class TtsCallbackConsumer {
                     };
                     
                     // 创建 PushConsumer，在 builder 中设置 MessageListener
-                    // 顺序消息使用单线程消费，RocketMQ会自动处理
+                    // 顺序消息模式下，RocketMQ 保证同一消息组内串行消费，不同消息组之间由多个线程并行消费
                     consumer = rocketMQConfig.getProvider().newPushConsumerBuilder()
                             .setClientConfiguration(configuration)
                             .setConsumerGroup(rocketMQConfig.getTtsCallbackConsumerGroup())
                             .setSubscriptionExpressions(Collections.singletonMap(
                                     rocketMQConfig.getTtsTopic(), filterExpression))  // 使用共用的 Topic
+                            .setConsumptionThreadCount(rocketMQConfig.getTtsCallbackConsumptionThreadCount())
                             .setMessageListener(messageListener)  // 在 builder 中设置监听器
                             .build();
                     
-                    logger.info("TTS回调消息监听器注册成功（顺序消息模式），Topic: {}, ConsumerGroup: {}", 
+                    logger.info("TTS回调消息监听器注册成功（顺序消息模式），Topic: {}, ConsumerGroup: {}, 消费线程数: {}", 
                             rocketMQConfig.getTtsTopic(), 
-                            rocketMQConfig.getTtsCallbackConsumerGroup());
+                            rocketMQConfig.getTtsCallbackConsumerGroup(),
+                            rocketMQConfig.getTtsCallbackConsumptionThreadCount());
                     return; // 成功启动，退出循环
                     
                 } catch (Exception e) {
@@ -109,7 +112,7 @@ public class TtsCallbackConsumer {
     
     /**
      * 处理单条消息
-     * 顺序消息模式下，RocketMQ 会保证消息按顺序处理
+     * 顺序消息模式下，RocketMQ 会保证同一消息组内的消息按顺序处理
      */
     private ConsumeResult processMessage(MessageView messageView) {
         String messageId = messageView.getMessageId().toString();
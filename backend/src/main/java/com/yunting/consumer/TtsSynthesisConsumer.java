@@ -1,19 +1,17 @@
 package com.yunting.consumer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.huaweicloud.sdk.core.auth.BasicCredentials;
-import com.huaweicloud.sdk.core.auth.ICredential;
 import com.huaweicloud.sdk.core.exception.ConnectionException;
 import com.huaweicloud.sdk.core.exception.RequestTimeoutException;
 import com.huaweicloud.sdk.core.exception.ServiceResponseException;
 import com.huaweicloud.sdk.metastudio.v1.MetaStudioClient;
 import com.huaweicloud.sdk.metastudio.v1.model.*;
-import com.huaweicloud.sdk.metastudio.v1.region.MetaStudioRegion;
 import com.yunting.config.RocketMQConfig;
 import com.yunting.constant.SynthesisStatus;
 import com.yunting.dto.synthesis.TtsSynthesisRequest;
 import com.yunting.mapper.BreakingSentenceMapper;
 import com.yunting.model.BreakingSentence;
+import com.yunting.service.MetaStudioQuotaManager;
 import com.yunting.service.TtsSynthesisCoordinator;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -36,16 +34,13 @@ import org.springframework.util.StringUtils;
 
 import java.nio.ByteBuffer;
 import java.util.Collections;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 /**
  * TTS合成请求消费者
- * 从RocketMQ消费TTS合成请求，限流5次/秒调用华为云API
+ * 从RocketMQ消费TTS合成请求，通过 MetaStudioQuotaManager 的令牌桶控制调用华为云API的速率
  * 支持顺序消息消费，确保所有合成请求按顺序执行
+ * 本地分发队列区分交互与批量两个通道，单句重新合成不必排在整任务合成的积压之后；
+ * 通道内按任务轮转，一个大任务不会让其他任务长时间排队
  */
 @Component
 public class TtsSynthesisConsumer {
@@ -58,25 +53,14 @@ public class TtsSynthesisConsumer {
     private final RocketMQConfig rocketMQConfig;
     private final TtsSynthesisCoordinator ttsSynthesisCoordinator;
     private final TransactionTemplate transactionTemplate;
-    private final BlockingQueue<MessageView> messageQueue = new LinkedBlockingQueue<>();
-    private final ScheduledExecutorService rateLimiterExecutor = Executors.newScheduledThreadPool(1);
+    private final MetaStudioQuotaManager quotaManager;
+    private final MetaStudioClient metaStudioClient;
+    private final SynthesisDispatchQueue dispatchQueue;
+    private Thread dispatcherThread;
     private volatile boolean running = false;
     
-    // 限流配置：5次/秒 = 每200毫秒处理一次
-    private static final long RATE_LIMIT_INTERVAL_MS = 200;
-    
-    // 华为云配置
-    @Value("${huaweicloud.ak:}")
-    private String huaweiCloudAk;
-    
-    @Value("${huaweicloud.sk:}")
-    private String huaweiCloudSk;
-    
-    @Value("${huaweicloud.region:cn-north-4}")
-    private String huaweiCloudRegion;
-    
-    @Value("${huaweicloud.project-id:}")
-    private String huaweiCloudProjectId;
+    // 被华为云限流（429）时的最大尝试次数
+    private static final int MAX_THROTTLE_ATTEMPTS = 3;
     
     @Value("${app.callback.url:}")
     private String callbackUrl;
@@ -85,11 +69,18 @@ public class TtsSynthesisConsumer {
                                 ObjectMapper objectMapper,
                                 RocketMQConfig rocketMQConfig,
                                 TtsSynthesisCoordinator ttsSynthesisCoordinator,
-                                PlatformTransactionManager transactionManager) {
+                                PlatformTransactionManager transactionManager,
+                                MetaStudioQuotaManager quotaManager,
+                                MetaStudioClient metaStudioClient,
+                                @Value("${tts.synthesis.dispatch.interactive-weight:4}") int interactiveWeight,
+                                @Value("${tts.synthesis.dispatch.task-quantum:1}") int taskQuantum) {
         this.breakingSentenceMapper = breakingSentenceMapper;
         this.objectMapper = objectMapper;
         this.rocketMQConfig = rocketMQConfig;
         this.ttsSynthesisCoordinator = ttsSynthesisCoordinator;
+        this.quotaManager = quotaManager;
+        this.metaStudioClient = metaStudioClient;
+        this.dispatchQueue = new SynthesisDispatchQueue(interactiveWeight, taskQuantum);
         // 创建事务模板，配置为遇到任何异常都回滚
         this.transactionTemplate = new TransactionTemplate(transactionManager);
         this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
@@ -100,10 +91,11 @@ public class TtsSynthesisConsumer {
     public void startConsuming() {
         logger.info("TTS合成请求消费者启动");
         
-        // 启动限流处理线程
+        // 启动分发线程：队列为空时阻塞等待，速率由配额管理器控制
         running = true;
-        rateLimiterExecutor.scheduleAtFixedRate(this::processNextMessage, 
-                0, RATE_LIMIT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        dispatcherThread = new Thread(this::dispatchLoop, "TtsSynthesisConsumer-Dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
         
         // 在后台线程中创建 Consumer
         new Thread(() -> {
@@ -122,8 +114,8 @@ public class TtsSynthesisConsumer {
                     MessageListener messageListener = new MessageListener() {
                         @Override
                         public ConsumeResult consume(MessageView messageView) {
-                            // 将消息放入队列，由限流线程处理
-                            messageQueue.offer(messageView);
+                            // 解析后按优先级放入分发队列，由分发线程处理
+                            enqueue(messageView);
                             return ConsumeResult.SUCCESS; // 先确认消息，避免重复
                         }
                     };
@@ -160,29 +152,43 @@ public class TtsSynthesisConsumer {
     }
     
     /**
-     * 限流处理：每200ms处理一条消息（5次/秒）
+     * 解析消息并按优先级放入分发队列
      */
-    private void processNextMessage() {
-        if (!running) {
-            return;
+    private void enqueue(MessageView messageView) {
+        try {
+            ByteBuffer byteBuffer = messageView.getBody();
+            byte[] body = new byte[byteBuffer.remaining()];
+            byteBuffer.get(body);
+            TtsSynthesisRequest request = objectMapper.readValue(body, TtsSynthesisRequest.class);
+            dispatchQueue.offer(request);
+        } catch (Exception e) {
+            logger.error("解析TTS合成请求失败，messageId: {}", messageView.getMessageId(), e);
         }
-        
-        MessageView messageView = messageQueue.poll();
-        if (messageView != null) {
-            processMessage(messageView);
+    }
+    
+    /**
+     * 分发循环：交互请求按权重优先于批量请求，同一通道内按任务轮转，同一任务内按断句序号处理
+     * 调用华为云API前会向配额管理器申请令牌，因此这里不再按固定间隔轮询
+     */
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                TtsSynthesisRequest request = dispatchQueue.take();
+                processMessage(request);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("分发TTS合成请求失败", e);
+            }
         }
     }
     
     /**
-     * 处理单条消息
+     * 处理单条合成请求
      */
-    private void processMessage(MessageView messageView) {
+    private void processMessage(TtsSynthesisRequest request) {
         try {
-            ByteBuffer byteBuffer = messageView.getBody();
-            byte[] body = new byte[byteBuffer.remaining()];
-            byteBuffer.get(body);
-            
-            TtsSynthesisRequest request = objectMapper.readValue(body, TtsSynthesisRequest.class);
             Long breakingSentenceId = request.getBreakingSentenceId();
             
             logger.info("处理TTS合成请求，breakingSentenceId: {}, 线程: {}", 
@@ -222,17 +228,6 @@ public class TtsSynthesisConsumer {
         String jobId = null;
         
         try {
-            // 创建华为云客户端
-            ICredential auth = new BasicCredentials()
-                    .withProjectId(huaweiCloudProjectId)
-                    .withAk(huaweiCloudAk)
-                    .withSk(huaweiCloudSk);
-            
-            MetaStudioClient client = MetaStudioClient.newBuilder()
-                    .withCredential(auth)
-                    .withRegion(MetaStudioRegion.valueOf(huaweiCloudRegion))
-                    .build();
-            
             // 构建请求
             CreateAsyncTtsJobRequest ttsRequest = new CreateAsyncTtsJobRequest();
             CreateAsyncTtsJobRequestBody body = new CreateAsyncTtsJobRequestBody();
@@ -251,12 +246,12 @@ public class TtsSynthesisConsumer {
                     .withVoiceAssetId(request.getVoiceId())
                     .withSpeed(request.getSpeechRate())
                     .withVolume(request.getVolume())
-                    .withCallbackConfig(new TtsCallBackConfig().withCallbackUrl(callbackUrl));
+                    .withCallbackConfig(new TtsCallBackConfig().withCallbackUrl(buildCallbackUrl(request.getTaskId())));
             
             ttsRequest.withBody(body);
             
-            // 调用华为云 API
-            CreateAsyncTtsJobResponse response = client.createAsyncTtsJob(ttsRequest);
+            // 在配额内调用华为云 API
+            CreateAsyncTtsJobResponse response = callCreateAsyncTtsJob(ttsRequest, breakingSentenceId);
             jobId = response.getJobId();
             
             if (StringUtils.hasText(jobId)) {
@@ -280,12 +275,54 @@ public class TtsSynthesisConsumer {
             logger.error("创建TTS任务服务响应异常，breakingSentenceId: {}, HTTP状态码={}, 错误码={}, 错误信息={}", 
                     breakingSentenceId, e.getHttpStatusCode(), e.getErrorCode(), e.getErrorMsg());
             updateSynthesisStatusInTransaction(breakingSentenceId, SynthesisStatus.Status.FAILED, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("等待调用配额时被中断，breakingSentenceId: {}", breakingSentenceId);
+            updateSynthesisStatusInTransaction(breakingSentenceId, SynthesisStatus.Status.FAILED, null);
         } catch (Exception e) {
             logger.error("创建TTS任务异常，breakingSentenceId: {}", breakingSentenceId, e);
             updateSynthesisStatusInTransaction(breakingSentenceId, SynthesisStatus.Status.FAILED, null);
         }
     }
     
+    /**
+     * 在回调地址上附加任务ID，回调到达时据此划分回调消息组
+     */
+    private String buildCallbackUrl(Long taskId) {
+        if (taskId == null || !StringUtils.hasText(callbackUrl)) {
+            return callbackUrl;
+        }
+        return callbackUrl + (callbackUrl.contains("?") ? "&" : "?") + "task_id=" + taskId;
+    }
+    
+    /**
+     * 在配额内调用创建TTS任务接口
+     * 被华为云限流（429）时通知配额管理器降速，并重新申请令牌后重试
+     */
+    private CreateAsyncTtsJobResponse callCreateAsyncTtsJob(CreateAsyncTtsJobRequest ttsRequest,
+                                                            Long breakingSentenceId) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            long waitMs = quotaManager.acquire(MetaStudioQuotaManager.Operation.CREATE_TTS_JOB);
+            if (waitMs > 0) {
+                logger.debug("等待TTS任务调用配额 {}ms，breakingSentenceId: {}", waitMs, breakingSentenceId);
+            }
+            try {
+                CreateAsyncTtsJobResponse response = metaStudioClient.createAsyncTtsJob(ttsRequest);
+                quotaManager.onSuccess(MetaStudioQuotaManager.Operation.CREATE_TTS_JOB);
+                return response;
+            } catch (ServiceResponseException e) {
+                if (!MetaStudioQuotaManager.isThrottled(e.getHttpStatusCode())) {
+                    throw e;
+                }
+                quotaManager.onThrottled(MetaStudioQuotaManager.Operation.CREATE_TTS_JOB);
+                if (attempt >= MAX_THROTTLE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("创建TTS任务被限流，第{}次尝试，稍后重试，breakingSentenceId: {}", attempt, breakingSentenceId);
+            }
+        }
+    }
+    
     /**
      * 在事务中更新jobId和状态
      */
@@ -332,10 +369,19 @@ public class TtsSynthesisConsumer {
         }
     }
     
+    /**
+     * 分发队列统计
+     */
+    public SynthesisDispatchQueue.Stats getDispatchStats() {
+        return dispatchQueue.getStats();
+    }
+    
     @PreDestroy
     public void stopConsuming() {
         running = false;
-        rateLimiterExecutor.shutdown();
+        if (dispatcherThread != null) {
+            dispatcherThread.interrupt();
+        }
         if (consumer != null) {
             try {
                 consumer.close();
@@ -26,7 +26,7 @@ public class AudioMergeController {
      * 合并音频
      * 合并任务下的所有音频文件
      *
-     * @param request 合并请求，包含 taskId
+     * @param request 合并请求，包含 taskId，可选输出格式 format（wav/mp3/aac/opus）、码率 bitrate（kbps）、单声道 mono
      * @return 合并响应，包含 mergeId
      */
     @PostMapping("/audio")
@@ -2,10 +2,14 @@ package com.yunting.controller;
 
 import com.yunting.common.ApiResponse;
 import com.yunting.common.ResponseUtil;
+import com.yunting.consumer.SynthesisDispatchQueue;
+import com.yunting.consumer.TtsSynthesisConsumer;
+import com.yunting.service.MetaStudioQuotaManager;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -16,6 +20,15 @@ import java.util.Map;
 @RequestMapping("/api")
 public class HealthController {
 
+    private final MetaStudioQuotaManager metaStudioQuotaManager;
+    private final TtsSynthesisConsumer ttsSynthesisConsumer;
+
+    public HealthController(MetaStudioQuotaManager metaStudioQuotaManager,
+                            TtsSynthesisConsumer ttsSynthesisConsumer) {
+        this.metaStudioQuotaManager = metaStudioQuotaManager;
+        this.ttsSynthesisConsumer = ttsSynthesisConsumer;
+    }
+
     /**
      * @ignore
      *
@@ -32,5 +45,30 @@ public class HealthController {
         );
         return ResponseUtil.success(status);
     }
-}
 
+    /**
+     * @ignore
+     *
+     * MetaStudio 调用配额状态
+     * 查看各接口令牌桶的当前速率、被限流次数和调用方等待时长
+     *
+     * @return 各接口的配额统计
+     */
+    @GetMapping("/health/quota")
+    public ApiResponse<List<MetaStudioQuotaManager.QuotaStats>> quota() {
+        return ResponseUtil.success(metaStudioQuotaManager.getStats());
+    }
+
+    /**
+     * @ignore
+     *
+     * TTS合成分发队列状态
+     * 查看交互/批量通道的排队数量、排队等待时长，以及各任务的排队深度
+     *
+     * @return 分发队列统计
+     */
+    @GetMapping("/health/synthesis-queue")
+    public ApiResponse<SynthesisDispatchQueue.Stats> synthesisQueue() {
+        return ResponseUtil.success(ttsSynthesisConsumer.getDispatchStats());
+    }
+}
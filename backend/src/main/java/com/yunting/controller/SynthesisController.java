@@ -22,6 +22,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 合成管理/合成管理控制器
  * @module 合成管理
@@ -153,20 +155,23 @@ public class SynthesisController {
      * 将回调请求发送到RocketMQ消息队列，由消费者异步处理
      * 
      * @param callbackRequest 回调请求体，包含任务状态、job_id、音频下载URL等信息
+     * @param taskId 所属任务ID，创建TTS任务时附加在回调地址上，用于按任务划分回调消息组
      * @return 处理结果
      */
     @PostMapping("/callback")
-    public ApiResponse<String> handleTtsCallback(@RequestBody TtsCallbackRequest callbackRequest) {
+    public CompletableFuture<ApiResponse<String>> handleTtsCallback(@RequestBody TtsCallbackRequest callbackRequest,
+                                                                    @RequestParam(value = "task_id", required = false) Long taskId) {
         try {
-            // 发送消息到RocketMQ，而不是直接处理
-            boolean success = rocketMQTtsCallbackService.sendTtsCallbackMessage(callbackRequest);
-            if (success) {
-                return ResponseUtil.success("回调消息已发送到消息队列");
-            } else {
-                return ResponseUtil.error(10500, "回调消息发送失败");
+            if (callbackRequest.getTaskId() == null) {
+                callbackRequest.setTaskId(taskId);
             }
+            // 异步发送消息到RocketMQ，而不是直接处理；请求线程不等待Broker响应，发送完成后再返回结果
+            return rocketMQTtsCallbackService.sendTtsCallbackMessageAsync(callbackRequest)
+                    .thenApply(success -> success
+                            ? ResponseUtil.success("回调消息已发送到消息队列")
+                            : ResponseUtil.<String>error(10500, "回调消息发送失败"));
         } catch (Exception e) {
-            return ResponseUtil.error(10500, "回调处理失败: " + e.getMessage());
+            return CompletableFuture.completedFuture(ResponseUtil.error(10500, "回调处理失败: " + e.getMessage()));
         }
     }
 
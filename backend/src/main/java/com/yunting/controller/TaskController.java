@@ -2,17 +2,23 @@ package com.yunting.controller;
 
 import com.yunting.common.ApiResponse;
 import com.yunting.common.ResponseUtil;
+import com.yunting.dto.progress.TaskProgressEvent;
 import com.yunting.dto.task.TaskCreateRequest;
 import com.yunting.dto.task.TaskCreateResponseDTO;
 import com.yunting.dto.task.TaskDetailDTO;
+import com.yunting.service.SynthesisService;
+import com.yunting.service.TaskProgressEventBus;
 import com.yunting.service.TaskService;
+import com.yunting.util.ValidationUtil;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * 任务管理/任务管理控制器
@@ -23,9 +29,15 @@ import org.springframework.web.bind.annotation.RestController;
 public class TaskController {
 
     private final TaskService taskService;
+    private final SynthesisService synthesisService;
+    private final TaskProgressEventBus taskProgressEventBus;
 
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService,
+                          SynthesisService synthesisService,
+                          TaskProgressEventBus taskProgressEventBus) {
         this.taskService = taskService;
+        this.synthesisService = synthesisService;
+        this.taskProgressEventBus = taskProgressEventBus;
     }
 
     /**
@@ -54,5 +66,20 @@ public class TaskController {
         TaskDetailDTO data = taskService.getTaskDetail(taskid);
         return ResponseUtil.success(data);
     }
-}
 
+    /**
+     * 订阅任务进度（SSE）
+     * 连接建立后先推送一次 snapshot 事件（与 /api/synthesis/getTaskStatus 返回内容相同），
+     * 之后在断句合成状态或音频合并状态变化时推送 sentence / merge 增量事件；
+     * 收到 resync 事件表示中间有事件被丢弃，需要重新查询一次全量状态
+     *
+     * @param taskid 任务ID（必填）
+     * @return SSE 事件流
+     */
+    @GetMapping(value = "/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeProgress(@RequestParam("taskid") Long taskid) {
+        ValidationUtil.notNull(taskid, "taskid不能为空");
+        return taskProgressEventBus.subscribe(taskid,
+                () -> TaskProgressEvent.snapshot(taskid, synthesisService.getTaskStatus(taskid)));
+    }
+}
@@ -7,6 +7,12 @@ package com.yunting.dto.audio;
 public class AudioMergeMessage {
     private Long taskId;
     private Long mergeId;
+    /**
+     * 输出格式，为空时输出 WAV（兼容升级前发送的消息）
+     */
+    private String outputFormat;
+    private Integer bitrateKbps;
+    private Boolean mono;
     
     public AudioMergeMessage() {
     }
@@ -31,5 +37,29 @@ public class AudioMergeMessage {
     public void setMergeId(Long mergeId) {
         this.mergeId = mergeId;
     }
+    
+    public String getOutputFormat() {
+        return outputFormat;
+    }
+    
+    public void setOutputFormat(String outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+    
+    public Integer getBitrateKbps() {
+        return bitrateKbps;
+    }
+    
+    public void setBitrateKbps(Integer bitrateKbps) {
+        this.bitrateKbps = bitrateKbps;
+    }
+    
+    public Boolean getMono() {
+        return mono;
+    }
+    
+    public void setMono(Boolean mono) {
+        this.mono = mono;
+    }
 }
 
@@ -8,6 +8,18 @@ public class AudioMergeRequest {
      * 任务ID（必填）
      */
     private Long taskId;
+    /**
+     * 输出格式（可选）：wav、mp3、aac、opus，默认 wav
+     */
+    private String format;
+    /**
+     * 码率（可选，kbps，16-320），仅压缩格式有效，默认按语音取值
+     */
+    private Integer bitrate;
+    /**
+     * 是否输出单声道（可选），语音内容建议开启
+     */
+    private Boolean mono;
 
     public Long getTaskId() {
         return taskId;
@@ -16,6 +28,30 @@ public class AudioMergeRequest {
     public void setTaskId(Long taskId) {
         this.taskId = taskId;
     }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public Integer getBitrate() {
+        return bitrate;
+    }
+
+    public void setBitrate(Integer bitrate) {
+        this.bitrate = bitrate;
+    }
+
+    public Boolean getMono() {
+        return mono;
+    }
+
+    public void setMono(Boolean mono) {
+        this.mono = mono;
+    }
 }
 
 
@@ -8,6 +8,14 @@ public class AudioMergeResponseDTO {
      * 合并任务ID
      */
     private Long mergeId;
+    /**
+     * 合并后的音频URL，内容未变化、直接复用已有合并结果时返回，否则为空（需轮询合并状态）
+     */
+    private String mergedAudioUrl;
+    /**
+     * 音频时长（毫秒），同 mergedAudioUrl
+     */
+    private Integer audioDuration;
 
     public AudioMergeResponseDTO() {
     }
@@ -23,6 +31,22 @@ public class AudioMergeResponseDTO {
     public void setMergeId(Long mergeId) {
         this.mergeId = mergeId;
     }
+
+    public String getMergedAudioUrl() {
+        return mergedAudioUrl;
+    }
+
+    public void setMergedAudioUrl(String mergedAudioUrl) {
+        this.mergedAudioUrl = mergedAudioUrl;
+    }
+
+    public Integer getAudioDuration() {
+        return audioDuration;
+    }
+
+    public void setAudioDuration(Integer audioDuration) {
+        this.audioDuration = audioDuration;
+    }
 }
 
 
@@ -0,0 +1,66 @@
+package com.yunting.dto.audio;
+
+import com.yunting.constant.AudioOutputFormat;
+
+/**
+ * 合并音频的输出参数：格式、码率、是否单声道
+ */
+public class AudioOutputProfile {
+
+    private final String format;
+    /**
+     * 码率（kbps），WAV 时为 null
+     */
+    private final Integer bitrateKbps;
+    private final boolean mono;
+
+    public AudioOutputProfile(String format, Integer bitrateKbps, boolean mono) {
+        this.format = format;
+        this.bitrateKbps = bitrateKbps;
+        this.mono = mono;
+    }
+
+    /**
+     * 默认输出：WAV，保持原声道
+     */
+    public static AudioOutputProfile wav() {
+        return new AudioOutputProfile(AudioOutputFormat.WAV, null, false);
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public Integer getBitrateKbps() {
+        return bitrateKbps;
+    }
+
+    public boolean isMono() {
+        return mono;
+    }
+
+    /**
+     * 是否为合并直接产出的 WAV，不需要再编码
+     */
+    public boolean isPassthrough() {
+        return AudioOutputFormat.WAV.equals(format) && !mono;
+    }
+
+    /**
+     * 输出文件扩展名
+     */
+    public String getFileExtension() {
+        if (AudioOutputFormat.AAC.equals(format)) {
+            return "m4a";
+        }
+        if (AudioOutputFormat.OPUS.equals(format)) {
+            return "ogg";
+        }
+        return format;
+    }
+
+    @Override
+    public String toString() {
+        return format + (bitrateKbps != null ? "/" + bitrateKbps + "k" : "") + (mono ? "/mono" : "");
+    }
+}
@@ -0,0 +1,255 @@
+package com.yunting.dto.progress;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.yunting.dto.synthesis.TaskSynthesisStatusDTO;
+import com.yunting.model.AudioMerge;
+import com.yunting.model.BreakingSentence;
+
+/**
+ * 任务进度推送事件（SSE）
+ * 事件类型：
+ * - snapshot：订阅时推送一次当前合成状态全量数据
+ * - sentence：断句合成状态变化
+ * - merge：音频合并状态变化
+ * - resync：客户端消费过慢，中间有事件被丢弃，需要重新查询一次全量状态
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskProgressEvent {
+
+    public static final String TYPE_SNAPSHOT = "snapshot";
+    public static final String TYPE_SENTENCE = "sentence";
+    public static final String TYPE_MERGE = "merge";
+    public static final String TYPE_RESYNC = "resync";
+
+    /**
+     * 事件类型
+     */
+    private String type;
+    /**
+     * 任务ID
+     */
+    private Long taskId;
+    /**
+     * 断句ID（sentence 事件）
+     */
+    private Long breakingSentenceId;
+    /**
+     * 拆句ID（sentence 事件）
+     */
+    private Long originalSentenceId;
+    /**
+     * 断句序号（sentence 事件）
+     */
+    private Integer sequence;
+    /**
+     * 断句合成状态（0-未合成，1-合成中，2-已合成，3-合成失败）
+     */
+    private Integer synthesisStatus;
+    /**
+     * 断句音频URL
+     */
+    private String audioUrl;
+    /**
+     * 断句音频时长（毫秒）
+     */
+    private Integer audioDuration;
+    /**
+     * 合并任务ID（merge 事件）
+     */
+    private Long mergeId;
+    /**
+     * 合并状态（1-合并中，2-已完成，3-失败）
+     */
+    private Integer mergeStatus;
+    /**
+     * 合并后的音频URL
+     */
+    private String mergedAudioUrl;
+    /**
+     * 合并后的音频时长
+     */
+    private Integer mergedAudioDuration;
+    /**
+     * 合并中：已下载（含下载失败跳过）的断句音频数
+     */
+    private Integer completedSegments;
+    /**
+     * 合并中：需要下载的断句音频总数
+     */
+    private Integer totalSegments;
+    /**
+     * 当前合成状态全量数据（snapshot 事件）
+     */
+    private TaskSynthesisStatusDTO snapshot;
+    /**
+     * 事件产生时间（毫秒时间戳）
+     */
+    private long timestamp;
+
+    public static TaskProgressEvent snapshot(Long taskId, TaskSynthesisStatusDTO snapshot) {
+        TaskProgressEvent event = new TaskProgressEvent(TYPE_SNAPSHOT, taskId);
+        event.setSnapshot(snapshot);
+        return event;
+    }
+
+    public static TaskProgressEvent sentence(BreakingSentence sentence) {
+        TaskProgressEvent event = new TaskProgressEvent(TYPE_SENTENCE, sentence.getTaskId());
+        event.setBreakingSentenceId(sentence.getBreakingSentenceId());
+        event.setOriginalSentenceId(sentence.getOriginalSentenceId());
+        event.setSequence(sentence.getSequence());
+        event.setSynthesisStatus(sentence.getSynthesisStatus());
+        event.setAudioUrl(sentence.getAudioUrl());
+        event.setAudioDuration(sentence.getAudioDuration());
+        return event;
+    }
+
+    public static TaskProgressEvent merge(AudioMerge audioMerge) {
+        TaskProgressEvent event = new TaskProgressEvent(TYPE_MERGE, audioMerge.getTaskId());
+        event.setMergeId(audioMerge.getMergeId());
+        event.setMergeStatus(audioMerge.getStatus());
+        event.setMergedAudioUrl(audioMerge.getMergedAudioUrl());
+        event.setMergedAudioDuration(audioMerge.getAudioDuration());
+        return event;
+    }
+
+    public static TaskProgressEvent resync(Long taskId) {
+        return new TaskProgressEvent(TYPE_RESYNC, taskId);
+    }
+
+    public TaskProgressEvent() {
+    }
+
+    private TaskProgressEvent(String type, Long taskId) {
+        this.type = type;
+        this.taskId = taskId;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Long taskId) {
+        this.taskId = taskId;
+    }
+
+    public Long getBreakingSentenceId() {
+        return breakingSentenceId;
+    }
+
+    public void setBreakingSentenceId(Long breakingSentenceId) {
+        this.breakingSentenceId = breakingSentenceId;
+    }
+
+    public Long getOriginalSentenceId() {
+        return originalSentenceId;
+    }
+
+    public void setOriginalSentenceId(Long originalSentenceId) {
+        this.originalSentenceId = originalSentenceId;
+    }
+
+    public Integer getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Integer sequence) {
+        this.sequence = sequence;
+    }
+
+    public Integer getSynthesisStatus() {
+        return synthesisStatus;
+    }
+
+    public void setSynthesisStatus(Integer synthesisStatus) {
+        this.synthesisStatus = synthesisStatus;
+    }
+
+    public String getAudioUrl() {
+        return audioUrl;
+    }
+
+    public void setAudioUrl(String audioUrl) {
+        this.audioUrl = audioUrl;
+    }
+
+    public Integer getAudioDuration() {
+        return audioDuration;
+    }
+
+    public void setAudioDuration(Integer audioDuration) {
+        this.audioDuration = audioDuration;
+    }
+
+    public Long getMergeId() {
+        return mergeId;
+    }
+
+    public void setMergeId(Long mergeId) {
+        this.mergeId = mergeId;
+    }
+
+    public Integer getMergeStatus() {
+        return mergeStatus;
+    }
+
+    public void setMergeStatus(Integer mergeStatus) {
+        this.mergeStatus = mergeStatus;
+    }
+
+    public String getMergedAudioUrl() {
+        return mergedAudioUrl;
+    }
+
+    public void setMergedAudioUrl(String mergedAudioUrl) {
+        this.mergedAudioUrl = mergedAudioUrl;
+    }
+
+    public Integer getMergedAudioDuration() {
+        return mergedAudioDuration;
+    }
+
+    public void setMergedAudioDuration(Integer mergedAudioDuration) {
+        this.mergedAudioDuration = mergedAudioDuration;
+    }
+
+    public Integer getCompletedSegments() {
+        return completedSegments;
+    }
+
+    public void setCompletedSegments(Integer completedSegments) {
+        this.completedSegments = completedSegments;
+    }
+
+    public Integer getTotalSegments() {
+        return totalSegments;
+    }
+
+    public void setTotalSegments(Integer totalSegments) {
+        this.totalSegments = totalSegments;
+    }
+
+    public TaskSynthesisStatusDTO getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(TaskSynthesisStatusDTO snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
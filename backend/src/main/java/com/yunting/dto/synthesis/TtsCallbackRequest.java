@@ -41,6 +41,13 @@ public class TtsCallbackRequest {
     @JsonProperty("audio_duration")
     private Integer audioDuration;
 
+    /**
+     * 所属任务ID（非华为云回调字段）
+     * 创建任务时附加在回调地址的 task_id 参数上，用于按任务划分回调消息组
+     */
+    @JsonProperty("task_id")
+    private Long taskId;
+
     public String getStatus() {
         return status;
     }
@@ -80,5 +87,12 @@ public class TtsCallbackRequest {
     public void setAudioDuration(Integer audioDuration) {
         this.audioDuration = audioDuration;
     }
-}
 
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Long taskId) {
+        this.taskId = taskId;
+    }
+}
@@ -6,12 +6,15 @@ package com.yunting.dto.synthesis;
  */
 public class TtsSynthesisRequest {
     private Long breakingSentenceId;
+    private Long taskId;  // 所属任务ID，用于确定消息组
+    private Integer sequence;  // 断句在任务中的序号，同一任务内按序号分发
     private String voiceId;
     private Integer speechRate;
     private Integer volume;
     private Integer pitch;
     private boolean resetStatus;
     private String ssml;  // SSML内容
+    private Integer priority;  // 调度优先级，见 SynthesisPriority，为空时按批量处理
     
     public Long getBreakingSentenceId() {
         return breakingSentenceId;
@@ -21,6 +24,22 @@ public class TtsSynthesisRequest {
         this.breakingSentenceId = breakingSentenceId;
     }
     
+    public Long getTaskId() {
+        return taskId;
+    }
+    
+    public void setTaskId(Long taskId) {
+        this.taskId = taskId;
+    }
+    
+    public Integer getSequence() {
+        return sequence;
+    }
+    
+    public void setSequence(Integer sequence) {
+        this.sequence = sequence;
+    }
+    
     public String getVoiceId() {
         return voiceId;
     }
@@ -68,5 +87,12 @@ public class TtsSynthesisRequest {
     public void setSsml(String ssml) {
         this.ssml = ssml;
     }
+    
+    public Integer getPriority() {
+        return priority;
+    }
+    
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
 }
-
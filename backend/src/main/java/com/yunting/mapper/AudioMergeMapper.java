@@ -9,8 +9,22 @@ public interface AudioMergeMapper {
 
     AudioMerge selectById(@Param("mergeId") Long mergeId);
 
+    /**
+     * 更新合并结果和状态，状态不再是合并中时清空 inflight_key
+     */
     int updateById(AudioMerge audioMerge);
 
+    /**
+     * 查询指纹相同的合并中记录
+     */
+    AudioMerge selectByInflightKey(@Param("inflightKey") String inflightKey);
+
+    /**
+     * 查询任务下内容指纹相同的最近一次已完成合并
+     */
+    AudioMerge selectLatestCompletedByFingerprint(@Param("taskId") Long taskId,
+                                                  @Param("contentFingerprint") String contentFingerprint);
+
     /**
      * 根据任务ID查询最新的合并记录
      */
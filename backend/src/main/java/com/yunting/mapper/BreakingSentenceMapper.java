@@ -1,8 +1,10 @@
 package com.yunting.mapper;
 
 import com.yunting.model.BreakingSentence;
+import com.yunting.model.BreakingSentenceStatus;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface BreakingSentenceMapper {
@@ -31,11 +33,39 @@ public interface BreakingSentenceMapper {
 
     List<BreakingSentence> selectByOriginalSentenceId(@Param("originalSentenceId") Long originalSentenceId);
 
+    /**
+     * 只查询合成状态相关的列，供状态轮询接口使用
+     */
+    List<BreakingSentenceStatus> selectStatusByTaskId(@Param("taskId") Long taskId);
+
+    List<BreakingSentenceStatus> selectStatusByOriginalSentenceId(@Param("originalSentenceId") Long originalSentenceId);
+
     int updateSynthesisInfo(@Param("breakingSentenceId") Long breakingSentenceId,
                             @Param("status") int status,
                             @Param("audioUrl") String audioUrl,
                             @Param("audioDuration") Integer audioDuration);
 
+    /**
+     * 更新合成结果，同时记录音频格式（见 AudioSegmentNormalizer#describe）
+     */
+    int updateSynthesisResult(@Param("breakingSentenceId") Long breakingSentenceId,
+                              @Param("status") int status,
+                              @Param("audioUrl") String audioUrl,
+                              @Param("audioDuration") Integer audioDuration,
+                              @Param("audioFormat") String audioFormat);
+
+    /**
+     * 批量更新合成状态，同时清空音频地址、时长和格式
+     */
+    int updateSynthesisStatusByIds(@Param("ids") List<Long> breakingSentenceIds,
+                                   @Param("status") int status);
+
+    /**
+     * 批量更新合成信息（synthesisStatus、audioUrl、audioDuration、audioFormat、synthesisCacheKey），每行取各自的值，
+     * 同时清空上一次合成的jobId
+     */
+    int batchUpdateSynthesisInfo(@Param("list") List<BreakingSentence> sentences);
+
     int resetSynthesisStatus(@Param("breakingSentenceId") Long breakingSentenceId);
 
     int updateContent(@Param("breakingSentenceId") Long breakingSentenceId,
@@ -47,9 +77,21 @@ public interface BreakingSentenceMapper {
 
     BreakingSentence selectByJobId(@Param("jobId") String jobId);
 
+    /**
+     * 查询已创建华为云任务、但处于合成中超过 stuckSeconds 秒的断句（按更新时间、断句ID从早到晚）
+     * afterUpdatedAt/afterId 不为空时只返回排在该位置之后的断句，用于分页扫描
+     */
+    List<BreakingSentence> selectStuckProcessing(@Param("stuckSeconds") int stuckSeconds,
+                                                 @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                                 @Param("afterId") Long afterId,
+                                                 @Param("limit") int limit);
+
     int updateJobId(@Param("breakingSentenceId") Long breakingSentenceId,
                     @Param("jobId") String jobId);
 
+    int updateSynthesisCacheKey(@Param("breakingSentenceId") Long breakingSentenceId,
+                                @Param("synthesisCacheKey") String synthesisCacheKey);
+
     int updateSequence(@Param("breakingSentenceId") Long breakingSentenceId,
                        @Param("sequence") Integer sequence);
 }
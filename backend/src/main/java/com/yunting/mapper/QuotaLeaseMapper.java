@@ -0,0 +1,30 @@
+package com.yunting.mapper;
+
+import com.yunting.model.QuotaLease;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+public interface QuotaLeaseMapper {
+
+    /**
+     * 写入或续约节点租约，到期时间为数据库当前时间加上 ttlMillis
+     */
+    int upsert(@Param("resource") String resource,
+               @Param("nodeId") String nodeId,
+               @Param("demandRate") double demandRate,
+               @Param("allocatedRate") double allocatedRate,
+               @Param("ttlMillis") long ttlMillis);
+
+    /**
+     * 查询未过期的租约
+     */
+    List<QuotaLease> selectActive(@Param("resource") String resource);
+
+    int delete(@Param("resource") String resource, @Param("nodeId") String nodeId);
+
+    /**
+     * 清理过期超过 retainSeconds 秒的租约
+     */
+    int deleteExpired(@Param("resource") String resource, @Param("retainSeconds") int retainSeconds);
+}
@@ -112,6 +112,15 @@ public interface ReadingRuleApplicationMapper {
      * @return 应用记录列表，每个Map包含rule_id和is_open
      */
     List<Map<String, Object>> selectByFromIdAndType(@Param("fromId") Long fromId, @Param("type") Integer type);
+
+    /**
+     * 根据多个fromId和type批量查询应用记录
+     *
+     * @param fromIds 来源ID列表（taskId或breakingSentenceId）
+     * @param type 类型（1-任务级，2-断句级）
+     * @return 应用记录列表，每个Map包含from_id、rule_id和is_open
+     */
+    List<Map<String, Object>> selectByFromIdsAndType(@Param("fromIds") List<Long> fromIds, @Param("type") Integer type);
 }
 
 
@@ -0,0 +1,17 @@
+package com.yunting.mapper;
+
+import com.yunting.model.TaskSynthesisCounter;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 任务合成状态计数，由 breaking_sentences 的触发器维护
+ */
+public interface TaskSynthesisCounterMapper {
+
+    TaskSynthesisCounter selectByTaskId(@Param("taskId") Long taskId);
+
+    /**
+     * 按断句表重新统计一个任务的计数（计数行缺失时使用）
+     */
+    int rebuild(@Param("taskId") Long taskId);
+}
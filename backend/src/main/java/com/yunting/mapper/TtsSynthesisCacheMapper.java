@@ -0,0 +1,23 @@
+package com.yunting.mapper;
+
+import com.yunting.model.TtsSynthesisCache;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TtsSynthesisCacheMapper {
+
+    TtsSynthesisCache selectByCacheKey(@Param("cacheKey") String cacheKey);
+
+    List<TtsSynthesisCache> selectByCacheKeys(@Param("cacheKeys") Collection<String> cacheKeys);
+
+    /**
+     * 写入缓存，缓存键已存在时覆盖音频地址和时长
+     */
+    int upsert(TtsSynthesisCache cache);
+
+    int incrementHitCount(@Param("cacheKey") String cacheKey);
+
+    int incrementHitCounts(@Param("cacheKeys") Collection<String> cacheKeys);
+}
@@ -0,0 +1,19 @@
+package com.yunting.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 华为云自定义读法规则的集群共享同步状态（单行）
+ */
+public interface VocabularySyncStateMapper {
+
+    /**
+     * 查询云端规则集指纹，尚未同步或云端状态未知时返回 null
+     */
+    String selectFingerprint();
+
+    /**
+     * 写入云端规则集指纹，fingerprint 为 null 表示云端状态未知
+     */
+    int upsertFingerprint(@Param("fingerprint") String fingerprint);
+}
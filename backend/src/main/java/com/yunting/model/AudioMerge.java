@@ -9,6 +9,8 @@ public class AudioMerge {
     private String mergedAudioUrl;
     private Integer audioDuration;
     private Integer status;
+    private String inflightKey;
+    private String contentFingerprint;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -60,6 +62,22 @@ public class AudioMerge {
         this.status = status;
     }
 
+    public String getInflightKey() {
+        return inflightKey;
+    }
+
+    public void setInflightKey(String inflightKey) {
+        this.inflightKey = inflightKey;
+    }
+
+    public String getContentFingerprint() {
+        return contentFingerprint;
+    }
+
+    public void setContentFingerprint(String contentFingerprint) {
+        this.contentFingerprint = contentFingerprint;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
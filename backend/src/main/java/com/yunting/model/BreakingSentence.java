@@ -12,8 +12,10 @@ public class BreakingSentence {
     private Integer synthesisStatus;
     private String audioUrl;
     private Integer audioDuration;
+    private String audioFormat;
     private String ssml;
     private String jobId;
+    private String synthesisCacheKey;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -89,6 +91,14 @@ public class BreakingSentence {
         this.audioDuration = audioDuration;
     }
 
+    public String getAudioFormat() {
+        return audioFormat;
+    }
+
+    public void setAudioFormat(String audioFormat) {
+        this.audioFormat = audioFormat;
+    }
+
     public String getSsml() {
         return ssml;
     }
@@ -105,6 +115,14 @@ public class BreakingSentence {
         this.jobId = jobId;
     }
 
+    public String getSynthesisCacheKey() {
+        return synthesisCacheKey;
+    }
+
+    public void setSynthesisCacheKey(String synthesisCacheKey) {
+        this.synthesisCacheKey = synthesisCacheKey;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,70 @@
+package com.yunting.model;
+
+/**
+ * 断句合成状态投影，只包含状态查询需要的列（不含 content、ssml 等大字段）
+ */
+public class BreakingSentenceStatus {
+    private Long breakingSentenceId;
+    private Long taskId;
+    private Long originalSentenceId;
+    private Integer sequence;
+    private Integer synthesisStatus;
+    private String audioUrl;
+    private Integer audioDuration;
+
+    public Long getBreakingSentenceId() {
+        return breakingSentenceId;
+    }
+
+    public void setBreakingSentenceId(Long breakingSentenceId) {
+        this.breakingSentenceId = breakingSentenceId;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Long taskId) {
+        this.taskId = taskId;
+    }
+
+    public Long getOriginalSentenceId() {
+        return originalSentenceId;
+    }
+
+    public void setOriginalSentenceId(Long originalSentenceId) {
+        this.originalSentenceId = originalSentenceId;
+    }
+
+    public Integer getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Integer sequence) {
+        this.sequence = sequence;
+    }
+
+    public Integer getSynthesisStatus() {
+        return synthesisStatus;
+    }
+
+    public void setSynthesisStatus(Integer synthesisStatus) {
+        this.synthesisStatus = synthesisStatus;
+    }
+
+    public String getAudioUrl() {
+        return audioUrl;
+    }
+
+    public void setAudioUrl(String audioUrl) {
+        this.audioUrl = audioUrl;
+    }
+
+    public Integer getAudioDuration() {
+        return audioDuration;
+    }
+
+    public void setAudioDuration(Integer audioDuration) {
+        this.audioDuration = audioDuration;
+    }
+}
@@ -0,0 +1,60 @@
+package com.yunting.model;
+
+import java.time.LocalDateTime;
+
+public class QuotaLease {
+    private String resource;
+    private String nodeId;
+    private Double demandRate;
+    private Double allocatedRate;
+    private LocalDateTime expiresAt;
+    private LocalDateTime updatedAt;
+
+    public String getResource() {
+        return resource;
+    }
+
+    public void setResource(String resource) {
+        this.resource = resource;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public Double getDemandRate() {
+        return demandRate;
+    }
+
+    public void setDemandRate(Double demandRate) {
+        this.demandRate = demandRate;
+    }
+
+    public Double getAllocatedRate() {
+        return allocatedRate;
+    }
+
+    public void setAllocatedRate(Double allocatedRate) {
+        this.allocatedRate = allocatedRate;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,318 @@
+package com.yunting.service;
+
+import com.yunting.util.HashUtil;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 断句音频本地磁盘缓存
+ * 以音频URL为键（断句音频的OBS对象键带时间戳，重新合成后URL随之变化，无需主动失效），
+ * 总大小超过上限时按最近最少使用淘汰。
+ * - TTS回调上传OBS时同时写入缓存
+ * - 音频合并优先从缓存取文件（硬链接，不支持时复制），未命中时下载后写回缓存
+ * 启动时扫描缓存目录恢复索引，按文件修改时间近似最近使用顺序
+ */
+@Service
+public class AudioSegmentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AudioSegmentCache.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String STAGING_SUFFIX = ".tmp";
+
+    private final boolean enabled;
+    private final Path cacheDir;
+    private final long maxBytes;
+
+    // 键 -> 文件大小，按访问顺序排列，最久未使用的在最前
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    public AudioSegmentCache(@Value("${audio.segment-cache.enabled:true}") boolean enabled,
+                             @Value("${audio.segment-cache.dir:temp/segment-cache}") String cacheDir,
+                             @Value("${audio.segment-cache.max-bytes:2147483648}") long maxBytes) {
+        this.enabled = enabled && maxBytes > 0;
+        this.cacheDir = Paths.get(cacheDir);
+        this.maxBytes = maxBytes;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            logger.info("断句音频磁盘缓存未启用");
+            return;
+        }
+        try {
+            Files.createDirectories(cacheDir);
+            File[] files = cacheDir.toFile().listFiles();
+            if (files != null) {
+                Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+                synchronized (this) {
+                    for (File file : files) {
+                        String name = file.getName();
+                        if (name.endsWith(STAGING_SUFFIX)) {
+                            // 上次进程退出时未完成的写入
+                            Files.deleteIfExists(file.toPath());
+                        } else if (name.endsWith(SEGMENT_SUFFIX) && file.isFile()) {
+                            record(name.substring(0, name.length() - SEGMENT_SUFFIX.length()), file.length());
+                        }
+                    }
+                }
+            }
+            logger.info("断句音频磁盘缓存启动，目录: {}, 已缓存: {}个, {} bytes, 上限: {} bytes",
+                    cacheDir.toAbsolutePath(), entries.size(), totalBytes, maxBytes);
+        } catch (Exception e) {
+            logger.warn("初始化断句音频磁盘缓存失败，缓存目录: {}", cacheDir.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * 命中缓存时把音频放到 target（优先硬链接，不支持时复制）
+     *
+     * @return 是否命中
+     */
+    public boolean copyTo(String audioUrl, Path target) {
+        if (!enabled || !StringUtils.hasText(audioUrl)) {
+            return false;
+        }
+        String key = keyOf(audioUrl);
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return false;
+            }
+        }
+        Path cached = pathOf(key);
+        try {
+            Files.deleteIfExists(target);
+            try {
+                Files.createLink(target, cached);
+            } catch (UnsupportedOperationException | IOException linkException) {
+                if (linkException instanceof NoSuchFileException) {
+                    throw (NoSuchFileException) linkException;
+                }
+                Files.copy(cached, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            // 已被淘汰或被外部删除
+            synchronized (this) {
+                remove(key);
+            }
+            return false;
+        } catch (Exception e) {
+            logger.warn("从磁盘缓存读取断句音频失败，audioUrl: {}, 错误: {}", audioUrl, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 把已下载到本地的音频放入缓存（优先硬链接，不支持时复制）
+     */
+    public void put(String audioUrl, Path source) {
+        if (!enabled || !StringUtils.hasText(audioUrl)) {
+            return;
+        }
+        Path staging = null;
+        try {
+            staging = Files.createTempFile(cacheDir, "segment_", STAGING_SUFFIX);
+            Files.delete(staging);
+            try {
+                Files.createLink(staging, source);
+            } catch (UnsupportedOperationException | IOException linkException) {
+                Files.copy(source, staging, StandardCopyOption.REPLACE_EXISTING);
+            }
+            commit(audioUrl, staging);
+            staging = null;
+        } catch (Exception e) {
+            logger.warn("写入断句音频磁盘缓存失败，audioUrl: {}, 错误: {}", audioUrl, e.getMessage());
+        } finally {
+            deleteQuietly(staging);
+        }
+    }
+
+    /**
+     * 开始一次边下载边写入缓存的操作，缓存未启用时返回 null。
+     * 写入流不会抛出异常，写入失败时本次不写入缓存，不影响调用方的主流程
+     */
+    public Staging beginStaging() {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            Path staging = Files.createTempFile(cacheDir, "segment_", STAGING_SUFFIX);
+            return new Staging(staging, Files.newOutputStream(staging));
+        } catch (Exception e) {
+            logger.warn("创建断句音频缓存临时文件失败，错误: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void commit(String audioUrl, Path staging) throws IOException {
+        String key = keyOf(audioUrl);
+        long size = Files.size(staging);
+        synchronized (this) {
+            Files.move(staging, pathOf(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            record(key, size);
+        }
+    }
+
+    /**
+     * 登记缓存条目，超过总大小上限时淘汰最久未使用的条目（调用方持有锁）
+     */
+    private void record(String key, long size) {
+        Long previous = entries.put(key, size);
+        totalBytes += size - (previous != null ? previous : 0L);
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && entries.size() > 1 && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            deleteQuietly(pathOf(eldest.getKey()));
+        }
+    }
+
+    private void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    private Path pathOf(String key) {
+        return cacheDir.resolve(key + SEGMENT_SUFFIX);
+    }
+
+    private static String keyOf(String audioUrl) {
+        return HashUtil.sha256Hex(audioUrl);
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (Exception e) {
+            logger.debug("删除缓存文件失败: {}", path, e);
+        }
+    }
+
+    /**
+     * 边下载边写入缓存：先写临时文件，commit 后才对读取可见
+     */
+    public final class Staging implements Closeable {
+        private final Path path;
+        private final SafeOutputStream outputStream;
+        private boolean committed;
+
+        private Staging(Path path, OutputStream outputStream) {
+            this.path = path;
+            this.outputStream = new SafeOutputStream(outputStream);
+        }
+
+        public OutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        /**
+         * 内容完整写入后以 audioUrl 为键放入缓存
+         */
+        public void commit(String audioUrl) {
+            try {
+                outputStream.close();
+                if (outputStream.failed || !StringUtils.hasText(audioUrl)) {
+                    return;
+                }
+                AudioSegmentCache.this.commit(audioUrl, path);
+                committed = true;
+            } catch (Exception e) {
+                logger.warn("写入断句音频磁盘缓存失败，audioUrl: {}, 错误: {}", audioUrl, e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                outputStream.close();
+            } catch (Exception e) {
+                logger.debug("关闭缓存临时文件失败: {}", path, e);
+            }
+            if (!committed) {
+                deleteQuietly(path);
+            }
+        }
+    }
+
+    /**
+     * 写入失败时记录状态并停止写入，不向调用方抛出异常
+     */
+    private static final class SafeOutputStream extends FilterOutputStream {
+        private boolean failed;
+        private boolean closed;
+
+        SafeOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) {
+            if (failed || closed) {
+                return;
+            }
+            try {
+                out.write(b);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (failed || closed) {
+                return;
+            }
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            out.close();
+        }
+
+        private void fail(IOException e) {
+            failed = true;
+            logger.warn("写入断句音频缓存临时文件失败，本次不缓存，错误: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.yunting.service;
+
+import com.yunting.util.WavUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 断句音频格式标准化
+ * TTS回调时把断句音频统一为标准格式（16 位 PCM WAV，采样率和声道数可配置，默认与 MetaStudio 的输出一致）并记录格式。
+ * 同一任务的断句格式一致，合并时直接拼接 PCM 数据，不需要再逐个解码重采样。
+ * - 打开下载流后先读取开头的字节解析 WAV 头部：已是标准格式的音频（正常情况下的全部音频）直接流式上传，不落盘、不转换
+ * - 其他格式才下载到本地并用 FFmpeg 转换后上传
+ * - 转换失败时上传原始音频，格式按文件头记录（无法识别时为空），合并时由 FFmpeg 处理
+ */
+@Service
+public class AudioSegmentNormalizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AudioSegmentNormalizer.class);
+
+    // 用于判断格式的流开头字节数，足以容纳带 LIST 等附加块的 WAV 头部
+    private static final int SNIFF_BYTES = 4096;
+
+    private final FFmpegService ffmpegService;
+    private final boolean enabled;
+    private final int sampleRate;
+    private final int channels;
+    private final Path workDir;
+
+    public AudioSegmentNormalizer(FFmpegService ffmpegService,
+                                  @Value("${audio.normalize.enabled:true}") boolean enabled,
+                                  @Value("${audio.normalize.sample-rate:16000}") int sampleRate,
+                                  @Value("${audio.normalize.channels:1}") int channels,
+                                  @Value("${file.storage.local.path:temp/audio}") String localStoragePath) {
+        this.ffmpegService = ffmpegService;
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.workDir = Paths.get(localStoragePath);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 标准格式的描述
+     */
+    public String getCanonicalFormat() {
+        return "pcm_s16le/" + sampleRate + "/" + channels;
+    }
+
+    /**
+     * 是否为标准格式
+     */
+    public boolean isCanonical(String audioFormat) {
+        return getCanonicalFormat().equals(audioFormat);
+    }
+
+    /**
+     * 格式描述：编码/采样率/声道数，如 pcm_s16le/16000/1；不是 PCM WAV 时返回 null
+     */
+    public static String describe(WavUtil.WavFormat format) {
+        if (format == null || format.getAudioFormat() != WavUtil.FORMAT_PCM) {
+            return null;
+        }
+        String codec = format.getBitsPerSample() == 8 ? "pcm_u8" : "pcm_s" + format.getBitsPerSample() + "le";
+        return codec + "/" + format.getSampleRate() + "/" + format.getChannels();
+    }
+
+    /**
+     * 打开断句音频的下载流，并按开头的字节判断是否已是标准格式
+     *
+     * @param downloadUrl TTS音频下载地址
+     * @return 下载流，使用完后需要关闭
+     * @throws RuntimeException 打开或读取下载流失败
+     */
+    public SegmentDownload open(String downloadUrl) {
+        InputStream inputStream = null;
+        try {
+            URLConnection connection = new URL(downloadUrl).openConnection();
+            connection.setConnectTimeout(30000); // 30秒连接超时
+            connection.setReadTimeout(300000); // 5分钟读取超时
+            long contentLength = connection.getContentLengthLong();
+            inputStream = connection.getInputStream();
+            byte[] prefix = new byte[SNIFF_BYTES];
+            int length = inputStream.readNBytes(prefix, 0, prefix.length);
+            WavUtil.WavFormat format = WavUtil.readFormat(prefix, length, contentLength);
+            // 已读出的开头字节放回流的前面，调用方读到的仍是完整内容
+            InputStream fullStream = new SequenceInputStream(new ByteArrayInputStream(prefix, 0, length), inputStream);
+            return new SegmentDownload(fullStream, contentLength, connection.getContentType(), format);
+        } catch (Exception e) {
+            closeQuietly(inputStream);
+            throw new RuntimeException("下载音频文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 把不是标准格式的下载流保存到本地并转换为标准格式
+     *
+     * @param download open 返回的下载流
+     * @param breakingSentenceId 断句ID，用于临时文件命名
+     * @return 本地音频文件及其格式，使用完后需要关闭以删除临时文件
+     * @throws RuntimeException 下载失败
+     */
+    public NormalizedSegment normalize(SegmentDownload download, Long breakingSentenceId) {
+        String baseName = "normalize_" + breakingSentenceId + "_" + System.currentTimeMillis();
+        File source;
+        try {
+            Files.createDirectories(workDir);
+            source = workDir.resolve(baseName + ".src").toFile();
+            Files.copy(download.getInputStream(), source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            throw new RuntimeException("下载音频文件失败: " + e.getMessage(), e);
+        }
+
+        WavUtil.WavFormat sourceFormat = readFormatQuietly(source);
+        String sourceDescription = describe(sourceFormat);
+        if (isCanonical(sourceDescription)) {
+            return new NormalizedSegment(source, sourceDescription, durationOf(sourceFormat));
+        }
+
+        File target = workDir.resolve(baseName + ".wav").toFile();
+        try {
+            long start = System.currentTimeMillis();
+            ffmpegService.convertToPcmWav(source, target, sampleRate, channels);
+            WavUtil.WavFormat targetFormat = WavUtil.readFormat(target);
+            String targetDescription = describe(targetFormat);
+            if (!isCanonical(targetDescription)) {
+                throw new IllegalStateException("转换后的音频格式不符合预期: " + targetDescription);
+            }
+            logger.info("断句音频已转换为标准格式，breakingSentenceId: {}, 原格式: {}, 标准格式: {}, 耗时: {}ms",
+                    breakingSentenceId, sourceDescription, targetDescription, System.currentTimeMillis() - start);
+            deleteQuietly(source);
+            return new NormalizedSegment(target, targetDescription, durationOf(targetFormat));
+        } catch (Exception e) {
+            logger.warn("断句音频转换标准格式失败，上传原始音频，breakingSentenceId: {}, 错误: {}",
+                    breakingSentenceId, e.getMessage());
+            deleteQuietly(target);
+            return new NormalizedSegment(source, sourceDescription, durationOf(sourceFormat));
+        }
+    }
+
+    private static WavUtil.WavFormat readFormatQuietly(File file) {
+        try {
+            return WavUtil.readFormat(file);
+        } catch (Exception e) {
+            logger.debug("读取音频文件头失败: {}", file.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    private static Integer durationOf(WavUtil.WavFormat format) {
+        if (format == null || format.getAudioFormat() != WavUtil.FORMAT_PCM || format.getDataLength() < 0) {
+            return null;
+        }
+        return WavUtil.durationMillis(format.getDataLength(), format);
+    }
+
+    private static void deleteQuietly(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (Exception e) {
+            logger.debug("删除临时文件失败: {}", file.getAbsolutePath(), e);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            logger.debug("关闭下载流失败", e);
+        }
+    }
+
+    /**
+     * 断句音频的下载流及按开头字节解析出的格式
+     */
+    public final class SegmentDownload implements Closeable {
+        private final InputStream inputStream;
+        private final long contentLength;
+        private final String contentType;
+        private final WavUtil.WavFormat format;
+        private final String audioFormat;
+
+        private SegmentDownload(InputStream inputStream, long contentLength, String contentType,
+                                WavUtil.WavFormat format) {
+            this.inputStream = inputStream;
+            this.contentLength = contentLength;
+            this.contentType = contentType;
+            this.format = format;
+            this.audioFormat = describe(format);
+        }
+
+        /**
+         * 完整内容（含用于判断格式的开头字节）
+         */
+        public InputStream getInputStream() {
+            return inputStream;
+        }
+
+        /**
+         * 内容长度，未知时为 -1
+         */
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * 是否已是标准格式，是则可以直接上传
+         */
+        public boolean isCanonical() {
+            return AudioSegmentNormalizer.this.isCanonical(audioFormat);
+        }
+
+        /**
+         * 格式描述，无法识别时为 null
+         */
+        public String getAudioFormat() {
+            return audioFormat;
+        }
+
+        /**
+         * 按 WAV 头部中的数据长度计算的时长（毫秒），无法确定时为 null
+         */
+        public Integer getDurationMs() {
+            return durationOf(format);
+        }
+
+        @Override
+        public void close() {
+            closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * 标准化后的断句音频（本地临时文件），关闭时删除
+     */
+    public static final class NormalizedSegment implements Closeable {
+        private final File file;
+        private final String audioFormat;
+        private final Integer durationMs;
+
+        private NormalizedSegment(File file, String audioFormat, Integer durationMs) {
+            this.file = file;
+            this.audioFormat = audioFormat;
+            this.durationMs = durationMs;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * 格式描述，无法识别时为 null
+         */
+        public String getAudioFormat() {
+            return audioFormat;
+        }
+
+        /**
+         * 按 PCM 数据长度计算的时长（毫秒），无法识别格式时为 null
+         */
+        public Integer getDurationMs() {
+            return durationMs;
+        }
+
+        @Override
+        public void close() {
+            deleteQuietly(file);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.yunting.service;
+
+import com.yunting.model.QuotaLease;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集群 TTS 调用配额协调
+ * huaweicloud.quota.tts-job.qps 是所有后端节点共享的全局配额。每个节点定期续约租约并上报需求速率，
+ * 再按最大最小公平原则（水位填充）在全局配额内计算本节点的份额，写入本地令牌桶：
+ * - 需求不足公平份额的节点只分到自己的需求，空闲部分由需求更大的节点借用
+ * - 所有节点都吃满时平分全局配额
+ * - 空闲节点保留一个最低份额，新请求到来时不必等下一次续约
+ * 各节点基于同一份租约快照计算，份额之和不超过全局配额；节点加入或退出后在一个续约周期内重新平衡。
+ * 启动时先同步完成一次续约再开始定时续约；在此之前（以及租约存储不可用时）本节点只使用
+ * MetaStudioQuotaManager 的保守启动份额，多个节点同时启动时不会各自按全局配额调用。
+ * 租约存储不可用时保持上一次的份额，不影响本节点继续调用
+ */
+@Service
+public class ClusterQuotaCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterQuotaCoordinator.class);
+
+    private static final MetaStudioQuotaManager.Operation OPERATION = MetaStudioQuotaManager.Operation.CREATE_TTS_JOB;
+
+    // 空闲节点的最低份额占公平份额的比例
+    private static final double MIN_SHARE_FACTOR = 0.1;
+    // 份额变化小于该比例时不调整令牌桶
+    private static final double REBALANCE_THRESHOLD = 0.01;
+    private static final int MAX_NODE_ID_LENGTH = 128;
+
+    private final MetaStudioQuotaManager quotaManager;
+    private final QuotaLeaseStore quotaLeaseStore;
+    private final boolean enabled;
+    private final String nodeId;
+    private final long heartbeatIntervalMs;
+    private final long leaseTtlMs;
+
+    private ScheduledExecutorService scheduler;
+    private volatile double allocatedRate;
+    private volatile int activeNodes = 1;
+    private long lastSampleNanos;
+    private long lastAcquiredCount;
+    private long lastWaitedCount;
+
+    public ClusterQuotaCoordinator(MetaStudioQuotaManager quotaManager,
+                                   QuotaLeaseStore quotaLeaseStore,
+                                   @Value("${huaweicloud.quota.cluster.enabled:true}") boolean enabled,
+                                   @Value("${huaweicloud.quota.cluster.node-id:}") String nodeId,
+                                   @Value("${huaweicloud.quota.cluster.heartbeat-interval-ms:2000}") long heartbeatIntervalMs,
+                                   @Value("${huaweicloud.quota.cluster.lease-ttl-ms:6000}") long leaseTtlMs) {
+        this.quotaManager = quotaManager;
+        this.quotaLeaseStore = quotaLeaseStore;
+        this.enabled = enabled;
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : defaultNodeId();
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.leaseTtlMs = Math.max(leaseTtlMs, heartbeatIntervalMs * 2);
+        this.allocatedRate = quotaManager.getAllocatedRate(OPERATION);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info("集群配额协调未启用，TTS任务按本节点配置速率调用: {}次/秒", allocatedRate);
+            return;
+        }
+        lastSampleNanos = System.nanoTime();
+        lastAcquiredCount = quotaManager.getAcquiredCount(OPERATION);
+        lastWaitedCount = quotaManager.getWaitedCount(OPERATION);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ClusterQuotaCoordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 第一次续约同步执行，尽快从启动份额切换到按存活节点计算的份额
+        heartbeat();
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("集群配额协调启动，nodeId: {}, 全局配额: {}次/秒, 本节点份额: {}次/秒, 续约间隔: {}ms, 租约有效期: {}ms",
+                nodeId, quotaManager.getConfiguredRate(OPERATION), String.format("%.2f", allocatedRate),
+                heartbeatIntervalMs, leaseTtlMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            quotaLeaseStore.release(OPERATION.name(), nodeId);
+            logger.info("集群配额租约已释放，nodeId: {}", nodeId);
+        } catch (Exception e) {
+            logger.warn("释放集群配额租约失败，租约将在到期后自动失效，nodeId: {}, 错误: {}", nodeId, e.getMessage());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public double getAllocatedRate() {
+        return allocatedRate;
+    }
+
+    public int getActiveNodes() {
+        return activeNodes;
+    }
+
+    /**
+     * 续约租约并重新计算本节点份额
+     */
+    private void heartbeat() {
+        try {
+            double globalRate = quotaManager.getConfiguredRate(OPERATION);
+            double demandRate = sampleDemandRate(globalRate);
+            List<QuotaLease> leases = quotaLeaseStore.renewAndList(
+                    OPERATION.name(), nodeId, demandRate, allocatedRate, leaseTtlMs);
+
+            List<String> nodeIds = new ArrayList<>();
+            List<Double> demands = new ArrayList<>();
+            int selfIndex = -1;
+            for (QuotaLease lease : leases) {
+                if (nodeId.equals(lease.getNodeId())) {
+                    selfIndex = nodeIds.size();
+                }
+                nodeIds.add(lease.getNodeId());
+                demands.add(lease.getDemandRate() != null ? lease.getDemandRate() : 0D);
+            }
+            if (selfIndex < 0) {
+                selfIndex = nodeIds.size();
+                nodeIds.add(nodeId);
+                demands.add(demandRate);
+            }
+
+            double[] shares = allocate(globalRate, demands.stream().mapToDouble(Double::doubleValue).toArray());
+            double share = shares[selfIndex];
+            int previousNodes = activeNodes;
+            activeNodes = nodeIds.size();
+            if (Math.abs(share - allocatedRate) > globalRate * REBALANCE_THRESHOLD) {
+                allocatedRate = share;
+                quotaManager.setAllocatedRate(OPERATION, share);
+                logger.info("集群配额重新分配，nodeId: {}, 节点数: {}, 本节点需求: {}次/秒, 本节点份额: {}次/秒",
+                        nodeId, activeNodes, String.format("%.2f", demandRate), String.format("%.2f", share));
+            } else if (previousNodes != activeNodes) {
+                logger.info("集群节点数变化，nodeId: {}, 节点数: {} -> {}", nodeId, previousNodes, activeNodes);
+            }
+        } catch (Exception e) {
+            logger.warn("集群配额租约续约失败，保持当前份额: {}次/秒，nodeId: {}, 错误: {}",
+                    allocatedRate, nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * 统计上一个周期的需求速率：
+     * 有调用方排队等待说明份额不够用，上报全局配额表示希望借用所有空闲配额；否则上报实际调用速率
+     */
+    private double sampleDemandRate(double globalRate) {
+        long now = System.nanoTime();
+        long acquired = quotaManager.getAcquiredCount(OPERATION);
+        long waited = quotaManager.getWaitedCount(OPERATION);
+        double elapsedSeconds = (now - lastSampleNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        double observedRate = elapsedSeconds > 0 ? (acquired - lastAcquiredCount) / elapsedSeconds : 0;
+        boolean saturated = waited > lastWaitedCount;
+        lastSampleNanos = now;
+        lastAcquiredCount = acquired;
+        lastWaitedCount = waited;
+        return saturated ? globalRate : Math.min(observedRate, globalRate);
+    }
+
+    /**
+     * 最大最小公平分配：按需求从小到大依次满足，满足不了的节点平分剩余配额；
+     * 所有需求都满足后仍有剩余时平均分给各节点，作为需求上涨时的余量
+     *
+     * @param total 全局配额
+     * @param demands 各节点需求
+     * @return 各节点份额，合计等于 total
+     */
+    static double[] allocate(double total, double[] demands) {
+        int n = demands.length;
+        double[] shares = new double[n];
+        if (n == 0) {
+            return shares;
+        }
+        double minShare = total / n * MIN_SHARE_FACTOR;
+        Integer[] order = new Integer[n];
+        double[] effective = new double[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            effective[i] = Math.max(demands[i], minShare);
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(effective[a], effective[b]));
+
+        double remaining = total;
+        for (int k = 0; k < n; k++) {
+            int index = order[k];
+            double level = remaining / (n - k);
+            double share = Math.min(effective[index], level);
+            shares[index] = share;
+            remaining -= share;
+        }
+        if (remaining > 0) {
+            double bonus = remaining / n;
+            for (int i = 0; i < n; i++) {
+                shares[i] += bonus;
+            }
+        }
+        return shares;
+    }
+
+    private static String defaultNodeId() {
+        // 形如 pid@hostname-随机后缀，重启后使用新的租约，旧租约到期自动失效
+        String nodeId = ManagementFactory.getRuntimeMXBean().getName() + "-"
+                + UUID.randomUUID().toString().substring(0, 8);
+        return nodeId.length() > MAX_NODE_ID_LENGTH ? nodeId.substring(nodeId.length() - MAX_NODE_ID_LENGTH) : nodeId;
+    }
+}
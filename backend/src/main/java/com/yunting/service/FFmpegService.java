@@ -1,5 +1,7 @@
 package com.yunting.service;
 
+import com.yunting.dto.audio.AudioOutputProfile;
+
 import java.io.File;
 import java.util.List;
 
@@ -19,7 +21,18 @@ public interface FFmpegService {
     int mergeAudioFiles(List<File> inputFiles, File outputFile);
     
     /**
-     * 获取音频时长（毫秒）
+     * 合并多个音频文件并按输出参数编码
+     * 
+     * @param inputFiles 输入音频文件列表（按顺序）
+     * @param outputFile 输出音频文件
+     * @param profile 输出格式、码率、声道
+     * @return 合并后的音频时长（毫秒）
+     * @throws RuntimeException 如果合并或编码失败
+     */
+    int mergeAudioFiles(List<File> inputFiles, File outputFile, AudioOutputProfile profile);
+    
+    /**
+     * 获取音频时长（毫秒），WAV、MP3 直接解析文件头，其他格式使用 FFprobe
      * 
      * @param audioFile 音频文件
      * @return 音频时长（毫秒）
@@ -27,6 +40,17 @@ public interface FFmpegService {
      */
     int getAudioDuration(File audioFile);
     
+    /**
+     * 将音频转换为 16 位 PCM WAV
+     * 
+     * @param inputFile 输入音频文件
+     * @param outputFile 输出 WAV 文件
+     * @param sampleRate 采样率
+     * @param channels 声道数
+     * @throws RuntimeException 如果转换失败
+     */
+    void convertToPcmWav(File inputFile, File outputFile, int sampleRate, int channels);
+    
     /**
      * 检查 FFmpeg 是否可用
      * 
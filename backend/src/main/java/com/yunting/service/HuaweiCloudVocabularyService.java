@@ -53,8 +53,18 @@ public interface HuaweiCloudVocabularyService {
      * 批量更新自定义读法规则（先删除所有，再创建新的）
      * 
      * @param rules 规则列表
+     * @return 更新后华为云上的规则列表
      */
-    void updateVocabularyConfigs(List<ReadingRule> rules);
+    List<VocabularyConfig> updateVocabularyConfigs(List<ReadingRule> rules);
+
+    /**
+     * 基于已知的云端规则批量更新自定义读法规则，不再重复查询云端
+     * 
+     * @param rules 规则列表
+     * @param existingConfigs 当前华为云上的规则列表
+     * @return 更新后华为云上的规则列表（不含创建失败的规则）
+     */
+    List<VocabularyConfig> updateVocabularyConfigs(List<ReadingRule> rules, List<VocabularyConfig> existingConfigs);
 
     /**
      * 华为云自定义读法配置DTO
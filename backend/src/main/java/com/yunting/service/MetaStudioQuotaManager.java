@@ -0,0 +1,356 @@
+package com.yunting.service;
+
+import com.yunting.util.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 华为云 MetaStudio 调用配额管理
+ * 为每类 MetaStudio 接口维护一个令牌桶，所有调用方共享同一份配额：
+ * - 空闲时积累令牌，允许小规模突发
+ * - 收到 429 限流响应时按比例降低速率，之后逐步恢复到分配速率
+ * - 统计调用方的排队等待时长
+ * 多节点部署时由 ClusterQuotaCoordinator 调整分配速率，使各节点合计不超过全局配额；
+ * 桶容量随份额按比例缩放，各节点的突发量合计也不超过配置的突发量。
+ * 集群模式下 TTS 任务接口在第一次分配完成前只使用一个保守的启动份额，避免多个节点同时启动时都按全局配额突发
+ */
+@Service
+public class MetaStudioQuotaManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetaStudioQuotaManager.class);
+
+    /**
+     * HTTP 429 Too Many Requests
+     */
+    public static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    // 被限流后速率下降比例，以及最低速率占分配速率的比例
+    private static final double THROTTLE_DECREASE_FACTOR = 0.5;
+    private static final double MIN_RATE_FACTOR = 0.1;
+    // 每次恢复增加分配速率的比例
+    private static final double RECOVERY_STEP_FACTOR = 0.1;
+    // 两次速率调整之间的最小间隔
+    private static final long ADJUST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // 集群模式下 TTS 任务接口的启动份额占全局配额的比例
+    private static final double STARTUP_SHARE_FACTOR = 0.1;
+
+    /**
+     * MetaStudio 接口类型
+     */
+    public enum Operation {
+        CREATE_TTS_JOB,
+        SHOW_TTS_JOB,
+        LIST_VOCABULARY,
+        CREATE_VOCABULARY,
+        DELETE_VOCABULARY
+    }
+
+    private final Map<Operation, OperationQuota> quotas = new EnumMap<>(Operation.class);
+
+    public MetaStudioQuotaManager(@Value("${huaweicloud.quota.tts-job.qps:5}") double ttsJobQps,
+                                  @Value("${huaweicloud.quota.tts-job.burst:5}") int ttsJobBurst,
+                                  @Value("${huaweicloud.quota.tts-job-query.qps:2}") double ttsJobQueryQps,
+                                  @Value("${huaweicloud.quota.tts-job-query.burst:2}") int ttsJobQueryBurst,
+                                  @Value("${huaweicloud.quota.vocabulary-list.qps:10}") double vocabularyListQps,
+                                  @Value("${huaweicloud.quota.vocabulary-list.burst:10}") int vocabularyListBurst,
+                                  @Value("${huaweicloud.quota.vocabulary-create.qps:10}") double vocabularyCreateQps,
+                                  @Value("${huaweicloud.quota.vocabulary-create.burst:10}") int vocabularyCreateBurst,
+                                  @Value("${huaweicloud.quota.vocabulary-delete.qps:10}") double vocabularyDeleteQps,
+                                  @Value("${huaweicloud.quota.vocabulary-delete.burst:10}") int vocabularyDeleteBurst,
+                                  @Value("${huaweicloud.quota.cluster.enabled:true}") boolean clusterEnabled) {
+        quotas.put(Operation.CREATE_TTS_JOB, new OperationQuota(ttsJobQps, ttsJobBurst));
+        quotas.put(Operation.SHOW_TTS_JOB, new OperationQuota(ttsJobQueryQps, ttsJobQueryBurst));
+        quotas.put(Operation.LIST_VOCABULARY, new OperationQuota(vocabularyListQps, vocabularyListBurst));
+        quotas.put(Operation.CREATE_VOCABULARY, new OperationQuota(vocabularyCreateQps, vocabularyCreateBurst));
+        quotas.put(Operation.DELETE_VOCABULARY, new OperationQuota(vocabularyDeleteQps, vocabularyDeleteBurst));
+        if (clusterEnabled) {
+            // 由 ClusterQuotaCoordinator 在第一次续约后替换为实际份额
+            setAllocatedRate(Operation.CREATE_TTS_JOB, ttsJobQps * STARTUP_SHARE_FACTOR);
+        }
+        logger.info("MetaStudio配额管理初始化完成，TTS任务: {}次/秒(突发{}), TTS任务查询: {}次/秒, 读法查询: {}次/秒, 读法创建: {}次/秒, 读法删除: {}次/秒",
+                ttsJobQps, ttsJobBurst, ttsJobQueryQps, vocabularyListQps, vocabularyCreateQps, vocabularyDeleteQps);
+    }
+
+    /**
+     * 获取一次调用配额，配额不足时阻塞等待
+     *
+     * @param operation 接口类型
+     * @return 等待时长（毫秒）
+     * @throws InterruptedException 等待被中断
+     */
+    public long acquire(Operation operation) throws InterruptedException {
+        OperationQuota quota = quotas.get(operation);
+        long waitNanos = quota.bucket.acquire();
+        quota.recordWait(waitNanos);
+        long waitMs = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        if (waitMs > 1000) {
+            logger.debug("MetaStudio调用等待配额时间较长，operation: {}, 等待: {}ms", operation, waitMs);
+        }
+        return waitMs;
+    }
+
+    /**
+     * 调用成功，逐步恢复被限流降低的速率
+     */
+    public void onSuccess(Operation operation) {
+        quotas.get(operation).recover(operation);
+    }
+
+    /**
+     * 调用被云端限流（HTTP 429），降低速率并清空已积累的令牌
+     */
+    public void onThrottled(Operation operation) {
+        quotas.get(operation).throttle(operation);
+    }
+
+    /**
+     * 设置本节点可使用的速率（集群份额），被限流降速后的恢复也以此为上限；
+     * 桶容量按份额占配置速率的比例缩放，至少为 1
+     */
+    public void setAllocatedRate(Operation operation, double rate) {
+        quotas.get(operation).allocate(operation, rate);
+    }
+
+    /**
+     * 获取本节点当前的分配速率
+     */
+    public double getAllocatedRate(Operation operation) {
+        return quotas.get(operation).allocatedRate;
+    }
+
+    /**
+     * 获取配置的速率（集群模式下为全局配额）
+     */
+    public double getConfiguredRate(Operation operation) {
+        return quotas.get(operation).configuredRate;
+    }
+
+    /**
+     * 累计获取配额的次数
+     */
+    public long getAcquiredCount(Operation operation) {
+        return quotas.get(operation).acquiredCount.sum();
+    }
+
+    /**
+     * 累计需要排队等待才获取到配额的次数，增长说明本节点的速率已不够用
+     */
+    public long getWaitedCount(Operation operation) {
+        return quotas.get(operation).waitedCount.sum();
+    }
+
+    /**
+     * 判断HTTP状态码是否为限流响应
+     */
+    public static boolean isThrottled(int httpStatusCode) {
+        return httpStatusCode == HTTP_TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * 获取各接口的配额使用统计
+     */
+    public List<QuotaStats> getStats() {
+        List<QuotaStats> stats = new ArrayList<>();
+        for (Map.Entry<Operation, OperationQuota> entry : quotas.entrySet()) {
+            stats.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        return stats;
+    }
+
+    /**
+     * 单个接口的配额状态
+     */
+    private static class OperationQuota {
+        private final double configuredRate;
+        private final int configuredBurst;
+        private final TokenBucket bucket;
+        private volatile double allocatedRate;
+        private final LongAdder acquiredCount = new LongAdder();
+        private final LongAdder waitedCount = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final LongAdder throttledCount = new LongAdder();
+        private long lastAdjustNanos = System.nanoTime();
+
+        OperationQuota(double configuredRate, int burst) {
+            this.configuredRate = configuredRate;
+            this.configuredBurst = burst;
+            this.allocatedRate = configuredRate;
+            this.bucket = new TokenBucket(configuredRate, burst);
+        }
+
+        void recordWait(long waitNanos) {
+            acquiredCount.increment();
+            if (waitNanos > 0) {
+                waitedCount.increment();
+            }
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+
+        synchronized void throttle(Operation operation) {
+            throttledCount.increment();
+            bucket.drain();
+            long now = System.nanoTime();
+            // 同一时间窗口内的多次429只降一次速，避免速率被连续砍到底
+            if (now - lastAdjustNanos < ADJUST_INTERVAL_NANOS) {
+                return;
+            }
+            double newRate = Math.max(allocatedRate * MIN_RATE_FACTOR, bucket.getRate() * THROTTLE_DECREASE_FACTOR);
+            bucket.setRate(newRate);
+            lastAdjustNanos = now;
+            logger.warn("MetaStudio调用被限流，降低速率，operation: {}, 新速率: {}次/秒", operation, newRate);
+        }
+
+        synchronized void recover(Operation operation) {
+            double currentRate = bucket.getRate();
+            if (currentRate >= allocatedRate) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - lastAdjustNanos < ADJUST_INTERVAL_NANOS) {
+                return;
+            }
+            double newRate = Math.min(allocatedRate, currentRate + allocatedRate * RECOVERY_STEP_FACTOR);
+            bucket.setRate(newRate);
+            lastAdjustNanos = now;
+            logger.info("MetaStudio调用速率恢复，operation: {}, 新速率: {}次/秒", operation, newRate);
+        }
+
+        synchronized void allocate(Operation operation, double rate) {
+            double currentRate = bucket.getRate();
+            // 正处于限流降速中时保持当前速率，由 recover 逐步恢复；否则直接切换到新份额
+            boolean backingOff = currentRate < allocatedRate;
+            allocatedRate = rate;
+            if (!backingOff || currentRate > rate) {
+                bucket.setRate(rate);
+            }
+            // 突发量与份额同比例缩放，否则 N 个节点空闲后可以同时突发 N 倍的配置突发量
+            int capacity = (int) Math.max(1, Math.round(configuredBurst * rate / configuredRate));
+            bucket.setCapacity(capacity);
+            logger.debug("MetaStudio调用分配速率调整，operation: {}, 分配速率: {}次/秒, 突发量: {}", operation, rate, capacity);
+        }
+
+        QuotaStats snapshot(Operation operation) {
+            QuotaStats stats = new QuotaStats();
+            long count = acquiredCount.sum();
+            stats.setOperation(operation.name());
+            stats.setConfiguredRate(configuredRate);
+            stats.setAllocatedRate(allocatedRate);
+            stats.setCurrentRate(bucket.getRate());
+            stats.setBurst(bucket.getCapacity());
+            stats.setAvailableTokens(bucket.getAvailableTokens());
+            stats.setAcquiredCount(count);
+            stats.setThrottledCount(throttledCount.sum());
+            stats.setAvgWaitMs(count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / count) : 0);
+            stats.setMaxWaitMs(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+            return stats;
+        }
+    }
+
+    /**
+     * 配额统计信息
+     */
+    public static class QuotaStats {
+        private String operation;
+        private double configuredRate;
+        private double allocatedRate;
+        private double currentRate;
+        private int burst;
+        private double availableTokens;
+        private long acquiredCount;
+        private long throttledCount;
+        private long avgWaitMs;
+        private long maxWaitMs;
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public void setOperation(String operation) {
+            this.operation = operation;
+        }
+
+        public double getConfiguredRate() {
+            return configuredRate;
+        }
+
+        public void setConfiguredRate(double configuredRate) {
+            this.configuredRate = configuredRate;
+        }
+
+        public double getAllocatedRate() {
+            return allocatedRate;
+        }
+
+        public void setAllocatedRate(double allocatedRate) {
+            this.allocatedRate = allocatedRate;
+        }
+
+        public double getCurrentRate() {
+            return currentRate;
+        }
+
+        public void setCurrentRate(double currentRate) {
+            this.currentRate = currentRate;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public double getAvailableTokens() {
+            return availableTokens;
+        }
+
+        public void setAvailableTokens(double availableTokens) {
+            this.availableTokens = availableTokens;
+        }
+
+        public long getAcquiredCount() {
+            return acquiredCount;
+        }
+
+        public void setAcquiredCount(long acquiredCount) {
+            this.acquiredCount = acquiredCount;
+        }
+
+        public long getThrottledCount() {
+            return throttledCount;
+        }
+
+        public void setThrottledCount(long throttledCount) {
+            this.throttledCount = throttledCount;
+        }
+
+        public long getAvgWaitMs() {
+            return avgWaitMs;
+        }
+
+        public void setAvgWaitMs(long avgWaitMs) {
+            this.avgWaitMs = avgWaitMs;
+        }
+
+        public long getMaxWaitMs() {
+            return maxWaitMs;
+        }
+
+        public void setMaxWaitMs(long maxWaitMs) {
+            this.maxWaitMs = maxWaitMs;
+        }
+    }
+}
@@ -2,9 +2,16 @@ package com.yunting.service;
 
 import com.obs.services.ObsClient;
 import com.obs.services.exception.ObsException;
+import com.obs.services.model.AbortMultipartUploadRequest;
 import com.obs.services.model.AccessControlList;
+import com.obs.services.model.CompleteMultipartUploadRequest;
+import com.obs.services.model.InitiateMultipartUploadRequest;
+import com.obs.services.model.ObjectMetadata;
+import com.obs.services.model.PartEtag;
 import com.obs.services.model.PutObjectRequest;
 import com.obs.services.model.PutObjectResult;
+import com.obs.services.model.UploadPartRequest;
+import com.obs.services.model.UploadPartResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,11 +19,17 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * OBS 存储服务，封装上传/下载等能力。
@@ -41,6 +54,12 @@ public class ObsStorageService {
     @Value("${huaweicloud.region:cn-north-4}")
     private String region;
 
+    /**
+     * 流式上传的分段大小（字节），也是流式上传占用的内存上限
+     */
+    @Value("${huaweicloud.obs.upload-part-size:5242880}")
+    private int uploadPartSize;
+
     public ObsStorageService(ObsClient obsClient) {
         this.obsClient = obsClient;
     }
@@ -74,35 +93,42 @@ public class ObsStorageService {
     }
 
     /**
-     * 从URL下载文件并上传到OBS
+     * 从URL下载文件并以流的方式上传到OBS，不落本地磁盘
+     * 下载内容按分段大小读入内存缓冲区：
+     * - 不超过一个分段（绝大多数断句音频）时直接PUT上传
+     * - 超过一个分段时改用分段上传，内存中始终只保留一个分段
      * 
      * @param downloadUrl 文件下载URL
      * @param objectKey OBS对象键（文件路径）
      * @return OBS访问URL
      */
     public String uploadFromUrl(String downloadUrl, String objectKey) {
+        return uploadFromUrl(downloadUrl, objectKey, null);
+    }
+
+    /**
+     * 从URL流式上传到OBS，同时把读到的内容原样写入 copyTo（如本地磁盘缓存），不额外下载
+     *
+     * @param downloadUrl 文件下载URL
+     * @param objectKey OBS对象键（文件路径）
+     * @param copyTo 内容副本的输出流，可为 null；写入异常会导致上传失败，调用方应自行兜底
+     * @return OBS访问URL
+     */
+    public String uploadFromUrl(String downloadUrl, String objectKey, OutputStream copyTo) {
         if (!StringUtils.hasText(bucketName)) {
             throw new IllegalStateException("未配置 huaweicloud.obs.bucket，无法上传文件");
         }
         
         try {
-            // 1. 从URL下载文件
-            logger.info("开始从URL下载文件: {}", downloadUrl);
+            // 打开下载连接
+            logger.info("开始从URL流式上传到OBS，downloadUrl: {}, objectKey: {}", downloadUrl, objectKey);
             URL url = new URL(downloadUrl);
             URLConnection connection = url.openConnection();
             connection.setConnectTimeout(30000); // 30秒连接超时
             connection.setReadTimeout(300000); // 5分钟读取超时
-            
             try (InputStream inputStream = connection.getInputStream()) {
-                // 2. 上传到OBS
-                logger.info("开始上传文件到OBS，bucket: {}, objectKey: {}", bucketName, objectKey);
-                PutObjectRequest putRequest = new PutObjectRequest(bucketName, objectKey, inputStream);
-                PutObjectResult result = obsClient.putObject(putRequest);
-                
-                // 3. 生成访问URL
-                String obsUrl = generateObsUrl(objectKey);
-                logger.info("文件上传成功，OBS URL: {}", obsUrl);
-                return obsUrl;
+                return uploadFromStream(inputStream, connection.getContentLengthLong(), connection.getContentType(),
+                        objectKey, copyTo);
             }
         } catch (Exception e) {
             logger.error("上传文件到OBS失败，downloadUrl: {}, objectKey: {}", downloadUrl, objectKey, e);
@@ -110,6 +136,113 @@ public class ObsStorageService {
         }
     }
 
+    /**
+     * 把输入流的内容流式上传到OBS（规则同 uploadFromUrl），同时把读到的内容原样写入 copyTo，不关闭输入流
+     *
+     * @param inputStream 内容输入流
+     * @param contentLength 内容长度，未知时传 -1
+     * @param contentType 内容类型，可为 null
+     * @param objectKey OBS对象键（文件路径）
+     * @param copyTo 内容副本的输出流，可为 null
+     * @return OBS访问URL
+     * @throws IOException 读取输入流或写入副本失败
+     */
+    public String uploadFromStream(InputStream inputStream, long contentLength, String contentType,
+                                   String objectKey, OutputStream copyTo) throws IOException {
+        if (!StringUtils.hasText(bucketName)) {
+            throw new IllegalStateException("未配置 huaweicloud.obs.bucket，无法上传文件");
+        }
+
+        // 1. 读取第一个分段：已知长度且不超过分段大小时按实际长度分配缓冲区
+        int firstChunkSize = contentLength >= 0 && contentLength < uploadPartSize
+                ? (int) contentLength + 1 : uploadPartSize;
+        byte[] buffer = new byte[firstChunkSize];
+        int read = inputStream.readNBytes(buffer, 0, buffer.length);
+
+        // 2. 一个分段内读完时直接上传，否则分段上传
+        long totalBytes;
+        if (read < buffer.length) {
+            if (copyTo != null) {
+                copyTo.write(buffer, 0, read);
+            }
+            putObject(objectKey, buffer, read, contentType);
+            totalBytes = read;
+        } else {
+            totalBytes = multipartUpload(objectKey, inputStream, buffer, read, contentType, copyTo);
+        }
+
+        // 3. 生成访问URL
+        String obsUrl = generateObsUrl(objectKey);
+        logger.info("文件上传成功，OBS URL: {}, 大小: {} bytes", obsUrl, totalBytes);
+        return obsUrl;
+    }
+
+    /**
+     * 上传内存中的完整内容
+     */
+    private void putObject(String objectKey, byte[] data, int length, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength((long) length);
+        if (StringUtils.hasText(contentType)) {
+            metadata.setContentType(contentType);
+        }
+        PutObjectRequest putRequest = new PutObjectRequest(bucketName, objectKey,
+                new ByteArrayInputStream(data, 0, length));
+        putRequest.setMetadata(metadata);
+        // 获取桶的ACL并应用到对象，使对象的ACL继承桶的ACL
+        putRequest.setAcl(obsClient.getBucketAcl(bucketName));
+        obsClient.putObject(putRequest);
+    }
+
+    /**
+     * 分段上传：buffer 中已有第一个分段，之后复用同一个缓冲区逐段读取并上传
+     *
+     * @return 上传的总字节数
+     */
+    private long multipartUpload(String objectKey, InputStream inputStream, byte[] firstPart, int firstPartLength,
+                                 String contentType, OutputStream copyTo) throws IOException {
+        InitiateMultipartUploadRequest initRequest = new InitiateMultipartUploadRequest(bucketName, objectKey);
+        initRequest.setAcl(obsClient.getBucketAcl(bucketName));
+        if (StringUtils.hasText(contentType)) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(contentType);
+            initRequest.setMetadata(metadata);
+        }
+        String uploadId = obsClient.initiateMultipartUpload(initRequest).getUploadId();
+        logger.info("内容超过一个分段，改用分段上传，objectKey: {}, uploadId: {}", objectKey, uploadId);
+        
+        List<PartEtag> partEtags = new ArrayList<>();
+        byte[] buffer = firstPart.length == uploadPartSize ? firstPart : Arrays.copyOf(firstPart, uploadPartSize);
+        int length = firstPartLength;
+        long totalBytes = 0;
+        try {
+            while (length > 0) {
+                if (copyTo != null) {
+                    copyTo.write(buffer, 0, length);
+                }
+                UploadPartRequest partRequest = new UploadPartRequest(bucketName, objectKey);
+                partRequest.setUploadId(uploadId);
+                partRequest.setPartNumber(partEtags.size() + 1);
+                partRequest.setPartSize((long) length);
+                partRequest.setInput(new ByteArrayInputStream(buffer, 0, length));
+                UploadPartResult partResult = obsClient.uploadPart(partRequest);
+                partEtags.add(new PartEtag(partResult.getEtag(), partResult.getPartNumber()));
+                totalBytes += length;
+                length = inputStream.readNBytes(buffer, 0, buffer.length);
+            }
+            obsClient.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, objectKey, uploadId, partEtags));
+            return totalBytes;
+        } catch (RuntimeException | IOException e) {
+            try {
+                obsClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectKey, uploadId));
+            } catch (Exception abortException) {
+                logger.warn("取消分段上传失败，objectKey: {}, uploadId: {}", objectKey, uploadId, abortException);
+            }
+            throw e;
+        }
+    }
+
     /**
      * 从本地文件上传到OBS
      * 
@@ -0,0 +1,31 @@
+package com.yunting.service;
+
+import com.yunting.model.QuotaLease;
+
+import java.util.List;
+
+/**
+ * 集群配额租约存储
+ * 各节点通过租约上报自身的需求速率，并读取其他节点的租约来计算各自的配额份额。
+ * 默认实现基于 MySQL（quota_leases 表），也可以替换为其他共享存储
+ */
+public interface QuotaLeaseStore {
+
+    /**
+     * 续约本节点的租约，并返回当前所有未过期的租约
+     *
+     * @param resource 配额资源
+     * @param nodeId 节点标识
+     * @param demandRate 本节点的需求速率（次/秒）
+     * @param allocatedRate 本节点当前使用的份额（次/秒）
+     * @param ttlMillis 租约有效期（毫秒）
+     * @return 未过期的租约列表（包含本节点）
+     */
+    List<QuotaLease> renewAndList(String resource, String nodeId, double demandRate,
+                                  double allocatedRate, long ttlMillis);
+
+    /**
+     * 释放本节点的租约，其他节点下一次续约时即可分得这部分配额
+     */
+    void release(String resource, String nodeId);
+}
@@ -1,8 +1,10 @@
 package com.yunting.service;
 
+import com.yunting.model.BreakingSentence;
 import com.yunting.model.ReadingRule;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 阅读规则汇总服务
@@ -21,4 +23,13 @@ public interface ReadingRuleAggregationService {
      * @return 阅读规则列表（已去重，断句规则优先）
      */
     List<ReadingRule> aggregateReadingRules(Long breakingSentenceId);
+
+    /**
+     * 批量汇总多个断句需要的阅读规则，规则同 {@link #aggregateReadingRules(Long)}，
+     * 但规则表和应用记录各只查询一次
+     * 
+     * @param sentences 断句列表（需包含breakingSentenceId和taskId）
+     * @return breakingSentenceId -> 阅读规则列表
+     */
+    Map<Long, List<ReadingRule>> aggregateReadingRules(List<BreakingSentence> sentences);
 }
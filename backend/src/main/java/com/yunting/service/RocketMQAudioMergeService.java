@@ -4,13 +4,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yunting.dto.audio.AudioMergeMessage;
 import org.apache.rocketmq.client.apis.ClientServiceProvider;
 import org.apache.rocketmq.client.apis.message.Message;
-import org.apache.rocketmq.client.apis.producer.Producer;
-import org.apache.rocketmq.client.apis.producer.SendReceipt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * RocketMQ 音频合并消息发送服务
  * 负责将音频合并请求发送到 RocketMQ 消息队列
@@ -21,17 +21,17 @@ public class RocketMQAudioMergeService {
     
     private static final Logger logger = LoggerFactory.getLogger(RocketMQAudioMergeService.class);
     
-    private final Producer producer;
+    private final RocketMQMessageSender messageSender;
     private final ObjectMapper objectMapper;
     private final String topic;
     private final String messageGroup;
     private final ClientServiceProvider provider = ClientServiceProvider.loadService();
     
-    public RocketMQAudioMergeService(Producer ttsProducer,
+    public RocketMQAudioMergeService(RocketMQMessageSender messageSender,
                                      ObjectMapper objectMapper,
                                      @Value("${rocketmq.tts.topic}") String topic,
                                      @Value("${rocketmq.audio-merge.message-group:AUDIO_MERGE_ORDERED}") String messageGroup) {
-        this.producer = ttsProducer;
+        this.messageSender = messageSender;
         this.objectMapper = objectMapper;
         this.topic = topic;
         this.messageGroup = messageGroup;
@@ -44,40 +44,57 @@ public class RocketMQAudioMergeService {
      * @return 是否发送成功
      */
     public boolean sendAudioMergeMessage(AudioMergeMessage mergeMessage) {
+        return sendAudioMergeMessageAsync(mergeMessage).join();
+    }
+    
+    /**
+     * 异步发送音频合并消息到 RocketMQ（顺序消息）
+     * 
+     * @param mergeMessage 音频合并消息
+     * @return 是否发送成功（发送失败时已记录日志，不会异常完成）
+     */
+    public CompletableFuture<Boolean> sendAudioMergeMessageAsync(AudioMergeMessage mergeMessage) {
+        Message message;
         try {
             // 序列化消息为JSON
             byte[] messageBody = objectMapper.writeValueAsBytes(mergeMessage);
             
             // 构建消息（顺序消息）
-            Message message = provider.newMessageBuilder()
+            message = provider.newMessageBuilder()
                     .setTopic(topic)
                     .setKeys(String.valueOf(mergeMessage.getMergeId()))  // 使用mergeId作为Key，便于消息追踪
                     .setTag("AUDIO_MERGE")
                     .setMessageGroup(messageGroup)  // 设置消息组，确保所有消息按顺序执行
                     .setBody(messageBody)
                     .build();
-            
-            // 发送顺序消息
-            SendReceipt sendReceipt = producer.send(message);
+        } catch (Exception e) {
+            logger.error("音频合并消息发送失败，taskId: {}, mergeId: {}", 
+                    mergeMessage.getTaskId(), mergeMessage.getMergeId(), e);
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        // 异步发送顺序消息
+        return messageSender.sendAsync(message).handle((sendReceipt, e) -> {
+            if (e != null) {
+                logSendFailure(RocketMQMessageSender.unwrap(e), mergeMessage);
+                return false;
+            }
             logger.info("音频合并消息发送成功（顺序消息），taskId: {}, mergeId: {}, messageId: {}, messageGroup: {}", 
                     mergeMessage.getTaskId(), mergeMessage.getMergeId(), sendReceipt.getMessageId(), messageGroup);
             return true;
-        } catch (IllegalArgumentException e) {
-            // 处理 Topic 不支持 FIFO 消息类型的错误
-            if (e.getMessage() != null && e.getMessage().contains("not match with topic accept message types")) {
-                logger.error("音频合并消息发送失败：Topic {} 不支持 FIFO 消息类型。请确保 Topic 配置为支持 FIFO 消息类型，或使用支持 FIFO 的 Topic。taskId: {}, mergeId: {}", 
-                        topic, mergeMessage.getTaskId(), mergeMessage.getMergeId());
-                logger.error("解决方案：1) 在 RocketMQ 控制台将 Topic '{}' 配置为支持 FIFO 消息类型；2) 或创建新的支持 FIFO 的 Topic，并配置 rocketmq.tts.topic", topic);
-            } else {
-                logger.error("音频合并消息发送失败，taskId: {}, mergeId: {}", 
-                        mergeMessage.getTaskId(), mergeMessage.getMergeId(), e);
-            }
-            return false;
-        } catch (Exception e) {
+        });
+    }
+    
+    private void logSendFailure(Throwable e, AudioMergeMessage mergeMessage) {
+        // 处理 Topic 不支持 FIFO 消息类型的错误
+        if (e instanceof IllegalArgumentException && e.getMessage() != null 
+                && e.getMessage().contains("not match with topic accept message types")) {
+            logger.error("音频合并消息发送失败：Topic {} 不支持 FIFO 消息类型。请确保 Topic 配置为支持 FIFO 消息类型，或使用支持 FIFO 的 Topic。taskId: {}, mergeId: {}", 
+                    topic, mergeMessage.getTaskId(), mergeMessage.getMergeId());
+            logger.error("解决方案：1) 在 RocketMQ 控制台将 Topic '{}' 配置为支持 FIFO 消息类型；2) 或创建新的支持 FIFO 的 Topic，并配置 rocketmq.tts.topic", topic);
+        } else {
             logger.error("音频合并消息发送失败，taskId: {}, mergeId: {}", 
                     mergeMessage.getTaskId(), mergeMessage.getMergeId(), e);
-            return false;
         }
     }
 }
-
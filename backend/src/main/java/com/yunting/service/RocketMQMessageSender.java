@@ -0,0 +1,115 @@
+package com.yunting.service;
+
+import org.apache.rocketmq.client.apis.message.Message;
+import org.apache.rocketmq.client.apis.producer.Producer;
+import org.apache.rocketmq.client.apis.producer.SendReceipt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RocketMQ 异步消息发送层
+ * TTS合成、TTS回调、音频合并三类消息共用：
+ * - 使用 producer.sendAsync 发送，调用线程不等待 Broker 往返
+ * - 用信号量限制在途消息数量，Broker 变慢时在途名额耗尽，新消息立即（或在 acquire-timeout-ms 内）返回失败，
+ *   由调用方按发送失败处理，不会长时间占住请求线程
+ * - 同一消息组内的消息也流水线并行发送，不等待前一条的 Broker 往返。并发在途的消息到达 Broker 的顺序
+ *   不保证与提交顺序一致，目前的消费方都不依赖组内顺序：合成请求由分发队列按断句序号重新排序，
+ *   回调和合并消息各自独立且按数据库状态幂等处理
+ */
+@Service
+public class RocketMQMessageSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(RocketMQMessageSender.class);
+
+    private final Producer producer;
+    private final int maxInFlight;
+    private final long acquireTimeoutMs;
+    private final Semaphore inFlightPermits;
+
+    public RocketMQMessageSender(Producer ttsProducer,
+                                 @Value("${rocketmq.producer.max-in-flight:256}") int maxInFlight,
+                                 @Value("${rocketmq.producer.acquire-timeout-ms:0}") long acquireTimeoutMs) {
+        this.producer = ttsProducer;
+        this.maxInFlight = maxInFlight;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        logger.info("RocketMQ异步发送层初始化完成，最大在途消息数: {}", maxInFlight);
+    }
+
+    /**
+     * 异步发送一条消息
+     * 在途消息达到上限时返回失败的 Future；acquireTimeoutMs 大于 0 时先最多等待这么久
+     *
+     * @param message 消息
+     * @return 发送结果
+     */
+    public CompletableFuture<SendReceipt> sendAsync(Message message) {
+        try {
+            boolean acquired = acquireTimeoutMs > 0
+                    ? inFlightPermits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)
+                    : inFlightPermits.tryAcquire();
+            if (!acquired) {
+                return CompletableFuture.failedFuture(new IllegalStateException(
+                        "RocketMQ在途消息数已达上限(" + maxInFlight + ")，等待" + acquireTimeoutMs + "ms后仍无空闲名额"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<SendReceipt> result = doSend(message);
+        result.whenComplete((receipt, e) -> inFlightPermits.release());
+        return result;
+    }
+
+    /**
+     * 批量异步发送消息
+     *
+     * @param messages 消息列表
+     * @return 与消息列表一一对应的发送结果
+     */
+    public List<CompletableFuture<SendReceipt>> sendAllAsync(List<Message> messages) {
+        List<CompletableFuture<SendReceipt>> futures = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            futures.add(sendAsync(message));
+        }
+        return futures;
+    }
+
+    /**
+     * 当前在途消息数
+     */
+    public int getInFlightCount() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+
+    /**
+     * 展开 CompletableFuture 包装的异常，便于按原始异常类型处理
+     */
+    public static Throwable unwrap(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private CompletableFuture<SendReceipt> doSend(Message message) {
+        try {
+            return producer.sendAsync(message);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
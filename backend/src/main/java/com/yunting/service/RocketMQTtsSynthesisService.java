@@ -1,40 +1,93 @@
 package com.yunting.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yunting.constant.SynthesisPriority;
 import com.yunting.dto.synthesis.TtsSynthesisRequest;
 import org.apache.rocketmq.client.apis.ClientServiceProvider;
 import org.apache.rocketmq.client.apis.message.Message;
-import org.apache.rocketmq.client.apis.producer.Producer;
 import org.apache.rocketmq.client.apis.producer.SendReceipt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * RocketMQ TTS合成请求发送服务
  * 负责将TTS合成请求发送到RocketMQ消息队列
- * 使用顺序消息，确保所有合成请求按顺序执行
+ * 消息组按任务划分，不同任务之间可以并行消费。同一任务的请求并发发送，不保证到达顺序；
+ * 消费端仅由 SynthesisDispatchQueue 按断句序号恢复顺序，且只对同时缓冲在队列中的请求有效
  */
 @Service
 public class RocketMQTtsSynthesisService {
     
     private static final Logger logger = LoggerFactory.getLogger(RocketMQTtsSynthesisService.class);
     
-    private final Producer producer;
+    private final RocketMQMessageSender messageSender;
     private final ObjectMapper objectMapper;
     private final String topic;
     private final String messageGroup;
+    private final int messageGroupShards;
     private final ClientServiceProvider provider = ClientServiceProvider.loadService();
     
-    public RocketMQTtsSynthesisService(Producer ttsProducer,
+    public RocketMQTtsSynthesisService(RocketMQMessageSender messageSender,
                                       ObjectMapper objectMapper,
                                       @Value("${rocketmq.tts.topic}") String topic,
-                                      @Value("${rocketmq.tts-synthesis.message-group:TTS_SYNTHESIS_ORDERED}") String messageGroup) {
-        this.producer = ttsProducer;
+                                      @Value("${rocketmq.tts-synthesis.message-group:TTS_SYNTHESIS_ORDERED}") String messageGroup,
+                                      @Value("${rocketmq.tts-synthesis.message-group-shards:0}") int messageGroupShards) {
+        this.messageSender = messageSender;
         this.objectMapper = objectMapper;
         this.topic = topic;
         this.messageGroup = messageGroup;
+        this.messageGroupShards = messageGroupShards;
+    }
+    
+    /**
+     * 确定合成请求的消息组
+     * - 交互请求使用独立的消息组：{前缀}_INTERACTIVE，不排在批量任务的消息之后
+     * - 分片数为0时，每个任务一个消息组：{前缀}_{taskId}
+     * - 分片数大于0时，按任务ID取模映射到固定数量的消息组：{前缀}_S{taskId % 分片数}
+     * - 没有任务ID时使用前缀本身作为消息组
+     */
+    private String resolveMessageGroup(TtsSynthesisRequest request) {
+        if (request.getPriority() != null && request.getPriority() == SynthesisPriority.INTERACTIVE) {
+            return messageGroup + "_INTERACTIVE";
+        }
+        Long taskId = request.getTaskId();
+        if (taskId == null) {
+            return messageGroup;
+        }
+        if (messageGroupShards > 0) {
+            return messageGroup + "_S" + Math.floorMod(taskId, messageGroupShards);
+        }
+        return messageGroup + "_" + taskId;
+    }
+    
+    /**
+     * 批量发送TTS合成请求到RocketMQ
+     * 整批请求一次性异步提交，全部完成后返回。各请求并发发送，同一消息组内不保证按列表顺序到达，
+     * 顺序仅由消费端 SynthesisDispatchQueue 对同时缓冲的请求按断句序号恢复
+     * 
+     * @param requests TTS合成请求列表
+     * @return 发送失败的断句ID列表
+     */
+    public List<Long> sendSynthesisRequests(List<TtsSynthesisRequest> requests) {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(requests.size());
+        for (TtsSynthesisRequest request : requests) {
+            futures.add(sendSynthesisRequestAsync(request));
+        }
+        
+        List<Long> failedIds = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (!futures.get(i).join()) {
+                failedIds.add(requests.get(i).getBreakingSentenceId());
+            }
+        }
+        logger.info("批量发送TTS合成请求完成，总数: {}, 失败: {}", requests.size(), failedIds.size());
+        return failedIds;
     }
     
     /**
@@ -44,40 +97,57 @@ public class RocketMQTtsSynthesisService {
      * @return 是否发送成功
      */
     public boolean sendSynthesisRequest(TtsSynthesisRequest request) {
+        return sendSynthesisRequestAsync(request).join();
+    }
+    
+    /**
+     * 异步发送TTS合成请求到RocketMQ
+     * 
+     * @param request TTS合成请求
+     * @return 是否发送成功（发送失败时已记录日志，不会异常完成）
+     */
+    public CompletableFuture<Boolean> sendSynthesisRequestAsync(TtsSynthesisRequest request) {
+        Message message;
+        String group = resolveMessageGroup(request);
         try {
             // 序列化请求为JSON
             byte[] messageBody = objectMapper.writeValueAsBytes(request);
             
             // 构建消息（顺序消息）
-            Message message = provider.newMessageBuilder()
+            message = provider.newMessageBuilder()
                     .setTopic(topic)
                     .setKeys(String.valueOf(request.getBreakingSentenceId()))  // 使用breakingSentenceId作为Key
                     .setTag("TTS_SYNTHESIS")  // 使用 TTS_SYNTHESIS Tag
-                    .setMessageGroup(messageGroup)  // 设置消息组，确保所有消息按顺序执行
+                    .setMessageGroup(group)  // 按任务设置消息组，确保同一任务内的消息按顺序执行
                     .setBody(messageBody)
                     .build();
-            
-            // 发送顺序消息
-            SendReceipt sendReceipt = producer.send(message);
+        } catch (Exception e) {
+            logger.error("TTS合成请求发送失败，breakingSentenceId: {}", request.getBreakingSentenceId(), e);
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        // 异步发送顺序消息
+        return messageSender.sendAsync(message).handle((sendReceipt, e) -> {
+            if (e != null) {
+                logSendFailure(RocketMQMessageSender.unwrap(e), request);
+                return false;
+            }
             logger.info("TTS合成请求发送成功（顺序消息），breakingSentenceId: {}, messageId: {}, messageGroup: {}", 
-                    request.getBreakingSentenceId(), sendReceipt.getMessageId(), messageGroup);
+                    request.getBreakingSentenceId(), sendReceipt.getMessageId(), group);
             return true;
-        } catch (IllegalArgumentException e) {
-            // 处理 Topic 不支持 FIFO 消息类型的错误
-            if (e.getMessage() != null && e.getMessage().contains("not match with topic accept message types")) {
-                logger.error("TTS合成请求发送失败：Topic {} 不支持 FIFO 消息类型。请确保 Topic 配置为支持 FIFO 消息类型，或使用支持 FIFO 的 Topic。breakingSentenceId: {}", 
-                        topic, request.getBreakingSentenceId());
-                logger.error("解决方案：1) 在 RocketMQ 控制台将 Topic '{}' 配置为支持 FIFO 消息类型；2) 或创建新的支持 FIFO 的 Topic，并配置 rocketmq.tts-synthesis.topic", topic);
-            } else {
-                logger.error("TTS合成请求发送失败，breakingSentenceId: {}", 
-                        request.getBreakingSentenceId(), e);
-            }
-            return false;
-        } catch (Exception e) {
+        });
+    }
+    
+    private void logSendFailure(Throwable e, TtsSynthesisRequest request) {
+        // 处理 Topic 不支持 FIFO 消息类型的错误
+        if (e instanceof IllegalArgumentException && e.getMessage() != null 
+                && e.getMessage().contains("not match with topic accept message types")) {
+            logger.error("TTS合成请求发送失败：Topic {} 不支持 FIFO 消息类型。请确保 Topic 配置为支持 FIFO 消息类型，或使用支持 FIFO 的 Topic。breakingSentenceId: {}", 
+                    topic, request.getBreakingSentenceId());
+            logger.error("解决方案：1) 在 RocketMQ 控制台将 Topic '{}' 配置为支持 FIFO 消息类型；2) 或创建新的支持 FIFO 的 Topic，并配置 rocketmq.tts-synthesis.topic", topic);
+        } else {
             logger.error("TTS合成请求发送失败，breakingSentenceId: {}", 
                     request.getBreakingSentenceId(), e);
-            return false;
         }
     }
 }
-
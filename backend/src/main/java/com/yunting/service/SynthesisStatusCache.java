@@ -0,0 +1,128 @@
+package com.yunting.service;
+
+import com.yunting.mapper.BreakingSentenceMapper;
+import com.yunting.model.BreakingSentenceStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合成状态轮询缓存
+ * 前端会频繁轮询任务/拆句的合成状态，这里按任务ID和拆句ID缓存断句状态投影（不含 content、ssml），
+ * 有效期很短，期间的轮询不再访问数据库。
+ * 本节点上的状态变化会在事务提交后失效对应任务的缓存；其他节点的变化在有效期内可见
+ */
+@Service
+public class SynthesisStatusCache {
+
+    private final BreakingSentenceMapper breakingSentenceMapper;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<Long, Entry> taskEntries = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> originalSentenceEntries = new ConcurrentHashMap<>();
+
+    public SynthesisStatusCache(BreakingSentenceMapper breakingSentenceMapper,
+                                @Value("${synthesis.status-cache.enabled:true}") boolean enabled,
+                                @Value("${synthesis.status-cache.ttl-ms:2000}") long ttlMs,
+                                @Value("${synthesis.status-cache.max-entries:2000}") int maxEntries) {
+        this.breakingSentenceMapper = breakingSentenceMapper;
+        this.enabled = enabled && ttlMs > 0;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxEntries = Math.max(maxEntries, 1);
+    }
+
+    /**
+     * 查询任务下所有断句的状态（按 sequence 排序）
+     */
+    public List<BreakingSentenceStatus> getByTaskId(Long taskId) {
+        if (!enabled) {
+            return breakingSentenceMapper.selectStatusByTaskId(taskId);
+        }
+        Entry entry = taskEntries.get(taskId);
+        if (entry != null && !entry.isExpired()) {
+            return entry.statuses;
+        }
+        List<BreakingSentenceStatus> statuses =
+                Collections.unmodifiableList(breakingSentenceMapper.selectStatusByTaskId(taskId));
+        put(taskEntries, taskId, new Entry(taskId, statuses, System.nanoTime() + ttlNanos));
+        return statuses;
+    }
+
+    /**
+     * 查询拆句下所有断句的状态（按 sequence 排序）
+     */
+    public List<BreakingSentenceStatus> getByOriginalSentenceId(Long originalSentenceId) {
+        if (!enabled) {
+            return breakingSentenceMapper.selectStatusByOriginalSentenceId(originalSentenceId);
+        }
+        Entry entry = originalSentenceEntries.get(originalSentenceId);
+        if (entry != null && !entry.isExpired()) {
+            return entry.statuses;
+        }
+        List<BreakingSentenceStatus> statuses = Collections.unmodifiableList(
+                breakingSentenceMapper.selectStatusByOriginalSentenceId(originalSentenceId));
+        Long taskId = statuses.isEmpty() ? null : statuses.get(0).getTaskId();
+        put(originalSentenceEntries, originalSentenceId, new Entry(taskId, statuses, System.nanoTime() + ttlNanos));
+        return statuses;
+    }
+
+    /**
+     * 任务下有断句状态变化时调用，失效该任务及其拆句的缓存
+     * 当前线程有事务时在事务提交后失效：提交前失效的话，并发的轮询会把尚未提交的旧状态重新放入缓存
+     */
+    public void invalidateTask(Long taskId) {
+        if (taskId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(taskId);
+                }
+            });
+        } else {
+            evict(taskId);
+        }
+    }
+
+    private void evict(Long taskId) {
+        taskEntries.remove(taskId);
+        originalSentenceEntries.values().removeIf(entry -> taskId.equals(entry.taskId));
+    }
+
+    private void put(Map<Long, Entry> entries, Long key, Entry entry) {
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(Entry::isExpired);
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(key, entry);
+    }
+
+    private static final class Entry {
+        private final Long taskId;
+        private final List<BreakingSentenceStatus> statuses;
+        private final long expiresAtNanos;
+
+        Entry(Long taskId, List<BreakingSentenceStatus> statuses, long expiresAtNanos) {
+            this.taskId = taskId;
+            this.statuses = statuses;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos >= 0;
+        }
+    }
+}
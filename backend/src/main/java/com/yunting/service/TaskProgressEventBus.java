@@ -0,0 +1,365 @@
+package com.yunting.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yunting.dto.progress.TaskProgressEvent;
+import com.yunting.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 任务进度事件总线（进程内）
+ * TTS回调、音频合并等流程在状态变化时发布事件，总线按任务ID分发给该任务的所有 SSE 订阅者，
+ * 客户端不必再循环轮询状态接口。
+ * - 事件在事务提交后才分发，客户端收到事件时数据库中已是新状态
+ * - 每个订阅者有独立的有界发送队列，由虚拟线程异步写出；写入阻塞的慢客户端只占住自己的虚拟线程，
+ *   不会阻塞发布方和其他订阅者
+ * - 按尚未写出的字节数（含正在写出的事件）和事件数两个维度限制积压，超过任一上限时丢弃积压的事件，
+ *   只保留一个 resync 事件，客户端收到后重新查询一次全量状态
+ * - 事件只序列化一次，由该任务的所有订阅者共享
+ * - 定期发送心跳注释，及时发现已断开的连接
+ * 注意：总线只在本节点内分发，多节点部署时客户端只会收到所连节点处理的事件，
+ * 断线重连或收到 resync 时应重新查询全量状态
+ */
+@Service
+public class TaskProgressEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskProgressEventBus.class);
+
+    private final long emitterTimeoutMs;
+    private final int queueCapacity;
+    private final long heartbeatSeconds;
+    private final long maxPendingBytes;
+    private final int maxSubscribers;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private ExecutorService senderPool;
+    private ScheduledExecutorService heartbeatScheduler;
+
+    public TaskProgressEventBus(@Value("${task-progress.sse.timeout-ms:1800000}") long emitterTimeoutMs,
+                                @Value("${task-progress.sse.queue-capacity:256}") int queueCapacity,
+                                @Value("${task-progress.sse.heartbeat-seconds:20}") long heartbeatSeconds,
+                                @Value("${task-progress.sse.max-pending-bytes:1048576}") long maxPendingBytes,
+                                @Value("${task-progress.sse.max-subscribers:1000}") int maxSubscribers,
+                                ObjectMapper objectMapper) {
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.queueCapacity = Math.max(queueCapacity, 1);
+        this.heartbeatSeconds = heartbeatSeconds;
+        this.maxPendingBytes = Math.max(maxPendingBytes, 1);
+        this.maxSubscribers = maxSubscribers;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        // 每次写出一个虚拟线程：SseEmitter.send 在客户端不读数据时会阻塞，平台线程池会被少数慢客户端占满
+        senderPool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("TaskProgressSender-", 1).factory());
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TaskProgressHeartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (heartbeatSeconds > 0) {
+            heartbeatScheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        }
+        logger.info("任务进度事件总线启动，订阅者队列容量: {}, 最大积压字节数: {}, 心跳间隔: {}秒",
+                queueCapacity, maxPendingBytes, heartbeatSeconds);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (heartbeatScheduler != null) {
+            heartbeatScheduler.shutdownNow();
+        }
+        subscribers.values().forEach(set -> set.forEach(Subscriber::complete));
+        if (senderPool != null) {
+            senderPool.shutdownNow();
+        }
+    }
+
+    /**
+     * 订阅任务进度，先推送一次全量状态，之后推送增量事件。
+     * 先登记订阅再查询全量状态，查询期间发生的变化会作为增量事件补发，不会遗漏
+     *
+     * @param taskId 任务ID
+     * @param snapshotSupplier 查询当前全量状态
+     */
+    public SseEmitter subscribe(Long taskId, Supplier<TaskProgressEvent> snapshotSupplier) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            logger.warn("任务进度订阅数已达上限: {}, taskId: {}", maxSubscribers, taskId);
+            throw new BusinessException(10500, "订阅数已达上限，请稍后重试或改用状态查询接口");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(taskId, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        subscribers.compute(taskId, (key, set) -> {
+            Set<Subscriber> taskSubscribers = set != null ? set : ConcurrentHashMap.newKeySet();
+            taskSubscribers.add(subscriber);
+            return taskSubscribers;
+        });
+        try {
+            OutboundEvent snapshot = serialize(snapshotSupplier.get());
+            if (snapshot == null) {
+                throw new BusinessException(10500, "任务进度序列化失败");
+            }
+            subscriber.offerFirst(snapshot);
+        } catch (RuntimeException e) {
+            remove(subscriber);
+            throw e;
+        }
+        logger.debug("新增任务进度订阅，taskId: {}, 当前订阅数: {}", taskId, subscriberCount.get());
+        return emitter;
+    }
+
+    /**
+     * 发布事件；当前线程有事务时在事务提交后分发，事务回滚则不分发
+     */
+    public void publish(TaskProgressEvent event) {
+        if (event == null || event.getTaskId() == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void dispatch(TaskProgressEvent event) {
+        Set<Subscriber> taskSubscribers = subscribers.get(event.getTaskId());
+        if (taskSubscribers == null) {
+            return;
+        }
+        OutboundEvent outbound = serialize(event);
+        if (outbound == null) {
+            return;
+        }
+        for (Subscriber subscriber : taskSubscribers) {
+            subscriber.offer(outbound);
+        }
+    }
+
+    private void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::ping));
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.markClosed()) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.taskId, (key, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * 序列化事件，失败时返回 null
+     */
+    private OutboundEvent serialize(TaskProgressEvent event) {
+        try {
+            return new OutboundEvent(event.getType(), objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            logger.warn("任务进度事件序列化失败，taskId: {}, type: {}, 错误: {}",
+                    event.getTaskId(), event.getType(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 已序列化的待发送事件（不可变，可被多个订阅者共享）
+     * SseEventBuilder 在 build 时会修改自身状态，不能共享，写出时再为每个连接各自创建
+     */
+    private static final class OutboundEvent {
+        // event/data 字段名与换行等 SSE 格式开销的估算值
+        private static final int FRAME_OVERHEAD = 16;
+        private static final OutboundEvent PING = new OutboundEvent(null, "ping");
+
+        private final String name;
+        private final String data;
+        private final long bytes;
+
+        OutboundEvent(String name, String data) {
+            this.name = name;
+            this.data = data;
+            this.bytes = (long) data.getBytes(StandardCharsets.UTF_8).length
+                    + (name != null ? name.length() : 0) + FRAME_OVERHEAD;
+        }
+
+        /**
+         * @return SSE 事件；name 为 null 时是心跳注释
+         */
+        SseEmitter.SseEventBuilder toSseEvent() {
+            if (name == null) {
+                return SseEmitter.event().comment(data);
+            }
+            return SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * 单个 SSE 连接：有界队列 + 串行发送，同一连接同一时刻只有一个发送线程在写
+     */
+    private final class Subscriber {
+        private final Long taskId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<OutboundEvent> queue = new ArrayDeque<>();
+        // 已入队但尚未写出完成的字节数，包括正在写出的事件
+        private long pendingBytes;
+        private boolean sending;
+        private boolean closed;
+        private long droppedEvents;
+
+        Subscriber(Long taskId, SseEmitter emitter) {
+            this.taskId = taskId;
+            this.emitter = emitter;
+        }
+
+        void offer(OutboundEvent event) {
+            enqueue(event, false);
+        }
+
+        void offerFirst(OutboundEvent event) {
+            enqueue(event, true);
+        }
+
+        void ping() {
+            synchronized (this) {
+                // 队列里还有事件或正在写出时不需要心跳
+                if (!queue.isEmpty() || sending) {
+                    return;
+                }
+            }
+            enqueue(OutboundEvent.PING, false);
+        }
+
+        private void enqueue(OutboundEvent event, boolean first) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                // 队列为空时总是接受一个事件，单个事件（如大任务的全量状态）超过字节上限也能发出
+                if (queue.size() >= queueCapacity
+                        || (!queue.isEmpty() && pendingBytes + event.bytes > maxPendingBytes)) {
+                    // 客户端消费跟不上：丢弃积压事件，通知客户端重新查询全量状态
+                    // 正在写出的事件无法撤回，其字节数保留到写出完成
+                    droppedEvents += queue.size();
+                    for (OutboundEvent dropped : queue) {
+                        pendingBytes -= dropped.bytes;
+                    }
+                    queue.clear();
+                    OutboundEvent resync = serialize(TaskProgressEvent.resync(taskId));
+                    if (resync != null) {
+                        queue.add(resync);
+                        pendingBytes += resync.bytes;
+                    }
+                    logger.warn("任务进度订阅者消费过慢，丢弃积压事件并要求重新同步，taskId: {}, 未写出字节数: {}, 累计丢弃: {}",
+                            taskId, pendingBytes, droppedEvents);
+                }
+                if (first) {
+                    queue.addFirst(event);
+                } else {
+                    queue.add(event);
+                }
+                pendingBytes += event.bytes;
+                if (sending) {
+                    return;
+                }
+                sending = true;
+            }
+            try {
+                senderPool.execute(this::drain);
+            } catch (Exception e) {
+                synchronized (this) {
+                    sending = false;
+                }
+                logger.warn("任务进度事件提交发送失败，taskId: {}, 错误: {}", taskId, e.getMessage());
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                OutboundEvent event;
+                synchronized (this) {
+                    event = queue.poll();
+                    if (event == null || closed) {
+                        sending = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(event.toSseEvent());
+                } catch (Exception e) {
+                    logger.debug("任务进度事件发送失败，连接可能已断开，taskId: {}, 错误: {}", taskId, e.getMessage());
+                    emitter.completeWithError(e);
+                    remove(this);
+                    synchronized (this) {
+                        queue.clear();
+                        pendingBytes = 0;
+                        sending = false;
+                    }
+                    return;
+                } finally {
+                    synchronized (this) {
+                        pendingBytes = Math.max(0, pendingBytes - event.bytes);
+                    }
+                }
+            }
+        }
+
+        void complete() {
+            try {
+                emitter.complete();
+            } catch (Exception e) {
+                logger.debug("关闭任务进度连接失败，taskId: {}", taskId, e);
+            }
+        }
+
+        /**
+         * @return 是否为首次关闭
+         */
+        synchronized boolean markClosed() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.yunting.service;
+
+import com.huaweicloud.sdk.core.exception.ServiceResponseException;
+import com.huaweicloud.sdk.metastudio.v1.MetaStudioClient;
+import com.huaweicloud.sdk.metastudio.v1.model.ShowAsyncTtsJobRequest;
+import com.huaweicloud.sdk.metastudio.v1.model.ShowAsyncTtsJobResponse;
+import com.yunting.constant.SynthesisStatus;
+import com.yunting.dto.synthesis.TtsCallbackRequest;
+import com.yunting.mapper.BreakingSentenceMapper;
+import com.yunting.model.BreakingSentence;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TTS任务对账
+ * 华为云的回调可能丢失，断句会一直停留在“合成中”。对账线程定期找出已创建任务、但合成中超过一定时间的断句，
+ * 在 SHOW_TTS_JOB 配额内主动查询任务状态：
+ * - 已完成/已失败：构造与华为云回调相同的消息发送到回调队列，由 TtsCallbackHandlerService 按回调流程处理
+ * - 仍在执行：按指数退避（带随机抖动）延后下一次查询，超过最长等待时间后按失败处理
+ * - 被限流：通知配额管理器降速，本轮剩余的任务留到下一轮
+ * 扫描按（更新时间, 断句ID）分页，跳过退避中的任务继续向后翻页，最早的一批任务都在退避时不会挡住较新的任务；
+ * 每轮扫描页数有上限，未扫完时下一轮从上次停下的位置继续
+ */
+@Service
+public class TtsJobReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TtsJobReconciler.class);
+
+    private static final int HTTP_NOT_FOUND = 404;
+    // 每页扫描的断句数为每轮查询数的倍数，留出处于退避中的任务
+    private static final int SCAN_FACTOR = 4;
+
+    private final BreakingSentenceMapper breakingSentenceMapper;
+    private final MetaStudioClient metaStudioClient;
+    private final MetaStudioQuotaManager quotaManager;
+    private final RocketMQTtsCallbackService rocketMQTtsCallbackService;
+
+    @Value("${tts.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tts.reconcile.interval-seconds:15}")
+    private long intervalSeconds;
+
+    @Value("${tts.reconcile.stuck-after-seconds:120}")
+    private int stuckAfterSeconds;
+
+    @Value("${tts.reconcile.batch-size:20}")
+    private int batchSize;
+
+    @Value("${tts.reconcile.max-scan-pages:10}")
+    private int maxScanPages;
+
+    @Value("${tts.reconcile.initial-backoff-seconds:10}")
+    private long initialBackoffSeconds;
+
+    @Value("${tts.reconcile.max-backoff-seconds:300}")
+    private long maxBackoffSeconds;
+
+    @Value("${tts.reconcile.max-age-seconds:3600}")
+    private long maxAgeSeconds;
+
+    private ScheduledExecutorService scheduler;
+    // 仅由对账线程访问
+    private final Map<String, PollState> pollStates = new HashMap<>();
+    // 上一轮因达到扫描页数上限而停下的位置，为 null 时从头扫描；仅由对账线程访问
+    private BreakingSentence resumeAfter;
+
+    public TtsJobReconciler(BreakingSentenceMapper breakingSentenceMapper,
+                            MetaStudioClient metaStudioClient,
+                            MetaStudioQuotaManager quotaManager,
+                            RocketMQTtsCallbackService rocketMQTtsCallbackService) {
+        this.breakingSentenceMapper = breakingSentenceMapper;
+        this.metaStudioClient = metaStudioClient;
+        this.quotaManager = quotaManager;
+        this.rocketMQTtsCallbackService = rocketMQTtsCallbackService;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info("TTS任务对账未启用");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TtsJobReconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reconcile, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        logger.info("TTS任务对账启动，扫描间隔: {}秒, 合成中超过 {}秒 视为疑似丢失回调, 每轮最多查询: {}个",
+                intervalSeconds, stuckAfterSeconds, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 一轮对账
+     */
+    private void reconcile() {
+        try {
+            int pageSize = batchSize * SCAN_FACTOR;
+            BreakingSentence cursor = resumeAfter;
+            boolean fromStart = cursor == null;
+            resumeAfter = null;
+            Set<String> seenJobIds = new HashSet<>();
+            int scanned = 0;
+            int queried = 0;
+            int resolved = 0;
+            boolean reachedEnd = false;
+            boolean stopped = false;
+            for (int page = 0; page < maxScanPages && !stopped; page++) {
+                List<BreakingSentence> stuckSentences = breakingSentenceMapper.selectStuckProcessing(stuckAfterSeconds,
+                        cursor != null ? cursor.getUpdatedAt() : null,
+                        cursor != null ? cursor.getBreakingSentenceId() : null,
+                        pageSize);
+                scanned += stuckSentences.size();
+                long now = System.nanoTime();
+                for (BreakingSentence sentence : stuckSentences) {
+                    String jobId = sentence.getJobId();
+                    seenJobIds.add(jobId);
+                    PollState state = pollStates.computeIfAbsent(jobId, key -> new PollState(now));
+                    if (state.nextPollNanos > now) {
+                        continue;
+                    }
+                    if (queried >= batchSize) {
+                        stopped = true;
+                        break;
+                    }
+                    queried++;
+                    PollOutcome outcome = poll(sentence, state);
+                    if (outcome == PollOutcome.THROTTLED) {
+                        stopped = true;
+                        break;
+                    }
+                    if (outcome == PollOutcome.RESOLVED) {
+                        resolved++;
+                        // 回调队列处理完成前断句仍是合成中，留出处理时间，避免下一轮重复查询
+                        state.nextPollNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxBackoffSeconds);
+                    }
+                }
+                if (stuckSentences.size() < pageSize) {
+                    reachedEnd = true;
+                    break;
+                }
+                cursor = stuckSentences.get(stuckSentences.size() - 1);
+            }
+            if (!reachedEnd && !stopped) {
+                // 达到扫描页数上限，下一轮从这里继续，避免总是只看到最早的那些任务
+                resumeAfter = cursor;
+            }
+            // 从头扫描到末尾时，未出现的任务已经结束（回调到达、被取消或重新合成），清理其退避状态
+            if (fromStart && reachedEnd && !stopped) {
+                pollStates.keySet().retainAll(seenJobIds);
+            }
+            if (queried > 0) {
+                logger.info("TTS任务对账完成，本轮扫描疑似丢失回调: {}个, 本轮查询: {}个, 已处理: {}个",
+                        scanned, queried, resolved);
+            }
+        } catch (Exception e) {
+            logger.error("TTS任务对账失败", e);
+        }
+    }
+
+    /**
+     * 在配额内查询一个任务的状态
+     */
+    private PollOutcome poll(BreakingSentence sentence, PollState state) throws InterruptedException {
+        String jobId = sentence.getJobId();
+        Long breakingSentenceId = sentence.getBreakingSentenceId();
+        quotaManager.acquire(MetaStudioQuotaManager.Operation.SHOW_TTS_JOB);
+        ShowAsyncTtsJobResponse response;
+        try {
+            response = metaStudioClient.showAsyncTtsJob(new ShowAsyncTtsJobRequest().withJobId(jobId));
+            quotaManager.onSuccess(MetaStudioQuotaManager.Operation.SHOW_TTS_JOB);
+        } catch (ServiceResponseException e) {
+            if (MetaStudioQuotaManager.isThrottled(e.getHttpStatusCode())) {
+                quotaManager.onThrottled(MetaStudioQuotaManager.Operation.SHOW_TTS_JOB);
+                logger.warn("查询TTS任务状态被限流，本轮对账提前结束，jobId: {}", jobId);
+                return PollOutcome.THROTTLED;
+            }
+            if (e.getHttpStatusCode() == HTTP_NOT_FOUND) {
+                logger.warn("华为云TTS任务不存在，按失败处理，jobId: {}, breakingSentenceId: {}", jobId, breakingSentenceId);
+                return complete(sentence, SynthesisStatus.Callback.ERROR, null, state);
+            }
+            logger.warn("查询TTS任务状态失败，稍后重试，jobId: {}, HTTP状态码={}, 错误信息={}",
+                    jobId, e.getHttpStatusCode(), e.getErrorMsg());
+            return backoff(sentence, state);
+        } catch (Exception e) {
+            logger.warn("查询TTS任务状态异常，稍后重试，jobId: {}, 错误: {}", jobId, e.getMessage());
+            return backoff(sentence, state);
+        }
+
+        String status = response.getStatus() != null ? String.valueOf(response.getStatus()) : null;
+        if (SynthesisStatus.Callback.FINISHED.equals(status)) {
+            logger.info("对账发现TTS任务已完成但未收到回调，jobId: {}, breakingSentenceId: {}", jobId, breakingSentenceId);
+            return complete(sentence, status, response.getAudioFileDownloadUrl(), state);
+        }
+        if (SynthesisStatus.Callback.ERROR.equals(status)) {
+            logger.info("对账发现TTS任务已失败但未收到回调，jobId: {}, breakingSentenceId: {}", jobId, breakingSentenceId);
+            return complete(sentence, status, null, state);
+        }
+        logger.debug("TTS任务仍在执行，jobId: {}, status: {}, 第{}次查询", jobId, status, state.attempts + 1);
+        return backoff(sentence, state);
+    }
+
+    /**
+     * 构造回调消息，交给回调队列按华为云回调的流程处理
+     */
+    private PollOutcome complete(BreakingSentence sentence, String status, String audioFileDownloadUrl, PollState state) {
+        String jobId = sentence.getJobId();
+        TtsCallbackRequest callbackRequest = new TtsCallbackRequest();
+        callbackRequest.setJobId(jobId);
+        callbackRequest.setTaskId(sentence.getTaskId());
+        callbackRequest.setStatus(status);
+        callbackRequest.setAudioFileDownloadUrl(audioFileDownloadUrl);
+        if (!rocketMQTtsCallbackService.sendTtsCallbackMessage(callbackRequest)) {
+            logger.warn("对账结果发送到回调队列失败，稍后重试，jobId: {}", jobId);
+            scheduleNext(state);
+            return PollOutcome.PENDING;
+        }
+        return PollOutcome.RESOLVED;
+    }
+
+    /**
+     * 任务仍未结束：超过最长等待时间按失败处理，否则按指数退避安排下一次查询
+     */
+    private PollOutcome backoff(BreakingSentence sentence, PollState state) {
+        long waitedSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - state.firstSeenNanos) + stuckAfterSeconds;
+        if (waitedSeconds >= maxAgeSeconds) {
+            logger.warn("TTS任务超过最长等待时间仍未结束，按失败处理，jobId: {}, breakingSentenceId: {}, 已等待约{}秒",
+                    sentence.getJobId(), sentence.getBreakingSentenceId(), waitedSeconds);
+            return complete(sentence, SynthesisStatus.Callback.ERROR, null, state);
+        }
+        scheduleNext(state);
+        return PollOutcome.PENDING;
+    }
+
+    private void scheduleNext(PollState state) {
+        state.attempts++;
+        long delaySeconds = Math.min(maxBackoffSeconds, initialBackoffSeconds << Math.min(state.attempts - 1, 20));
+        // 加入 ±20% 抖动，避免同一批任务总在同一轮被集中查询
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        state.nextPollNanos = System.nanoTime() + (long) (TimeUnit.SECONDS.toNanos(delaySeconds) * jitter);
+    }
+
+    private enum PollOutcome {
+        RESOLVED,
+        PENDING,
+        THROTTLED
+    }
+
+    /**
+     * 单个任务的查询退避状态
+     */
+    private static final class PollState {
+        private final long firstSeenNanos;
+        private int attempts;
+        private long nextPollNanos;
+
+        PollState(long firstSeenNanos) {
+            this.firstSeenNanos = firstSeenNanos;
+            this.nextPollNanos = firstSeenNanos;
+        }
+    }
+}
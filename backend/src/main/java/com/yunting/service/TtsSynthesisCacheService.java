@@ -0,0 +1,65 @@
+package com.yunting.service;
+
+import com.yunting.dto.synthesis.TtsSynthesisRequest;
+import com.yunting.model.ReadingRule;
+import com.yunting.model.TtsSynthesisCache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TTS合成结果缓存服务
+ * 以 (ssml, voiceId, 语速, 音量, 音高, 阅读规则指纹) 的哈希为键，复用已上传到OBS的合成音频，
+ * 内容完全相同的断句再次合成时不再占用华为云的调用配额
+ */
+public interface TtsSynthesisCacheService {
+
+    /**
+     * 缓存是否启用
+     */
+    boolean isEnabled();
+
+    /**
+     * 计算合成请求的缓存键
+     *
+     * @param request TTS合成请求
+     * @return 缓存键；缓存未启用时返回 null
+     */
+    String buildCacheKey(TtsSynthesisRequest request);
+
+    /**
+     * 使用已汇总的阅读规则计算合成请求的缓存键（批量合成时避免逐句查询规则）
+     *
+     * @param request TTS合成请求
+     * @param rules 断句生效的阅读规则
+     * @return 缓存键；缓存未启用时返回 null
+     */
+    String buildCacheKey(TtsSynthesisRequest request, List<ReadingRule> rules);
+
+    /**
+     * 查询缓存
+     *
+     * @param cacheKey 缓存键，为空时直接返回 null
+     * @return 命中的缓存记录，未命中返回 null
+     */
+    TtsSynthesisCache lookup(String cacheKey);
+
+    /**
+     * 批量查询缓存
+     *
+     * @param cacheKeys 缓存键集合，空键会被忽略
+     * @return 命中的缓存记录，cacheKey -> 缓存记录
+     */
+    Map<String, TtsSynthesisCache> lookupAll(Collection<String> cacheKeys);
+
+    /**
+     * 写入缓存
+     *
+     * @param cacheKey 缓存键，为空时忽略
+     * @param audioUrl OBS音频地址
+     * @param audioDuration 音频时长（毫秒）
+     * @param audioFormat 音频格式，未知时为 null
+     */
+    void save(String cacheKey, String audioUrl, Integer audioDuration, String audioFormat);
+}
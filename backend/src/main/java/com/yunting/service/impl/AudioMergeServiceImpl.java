@@ -1,11 +1,14 @@
 package com.yunting.service.impl;
 
 import com.yunting.constant.AudioMergeStatus;
+import com.yunting.constant.AudioOutputFormat;
 import com.yunting.constant.TaskStatus;
 import com.yunting.dto.audio.AudioMergeMessage;
 import com.yunting.dto.audio.AudioMergeRequest;
 import com.yunting.dto.audio.AudioMergeResponseDTO;
 import com.yunting.dto.audio.AudioMergeStatusDTO;
+import com.yunting.dto.audio.AudioOutputProfile;
+import com.yunting.dto.progress.TaskProgressEvent;
 import com.yunting.exception.BusinessException;
 import com.yunting.mapper.AudioMergeMapper;
 import com.yunting.mapper.BreakingSentenceMapper;
@@ -14,13 +17,18 @@ import com.yunting.model.AudioMerge;
 import com.yunting.model.BreakingSentence;
 import com.yunting.model.Task;
 import com.yunting.service.AudioMergeService;
+import com.yunting.service.AudioSegmentCache;
+import com.yunting.service.AudioSegmentNormalizer;
 import com.yunting.service.FFmpegService;
 import com.yunting.service.ObsStorageService;
 import com.yunting.service.RocketMQAudioMergeService;
+import com.yunting.service.TaskProgressEventBus;
+import com.yunting.util.HashUtil;
 import com.yunting.util.ValidationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
@@ -31,9 +39,15 @@ import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,41 +55,73 @@ public class AudioMergeServiceImpl implements AudioMergeService {
 
     private static final Logger logger = LoggerFactory.getLogger(AudioMergeServiceImpl.class);
 
+    // 下载进度按 10% 一档上报
+    private static final int PROGRESS_STEPS = 10;
+
     private final AudioMergeMapper audioMergeMapper;
     private final TaskMapper taskMapper;
     private final BreakingSentenceMapper breakingSentenceMapper;
     private final FFmpegService ffmpegService;
     private final ObsStorageService obsStorageService;
     private final RocketMQAudioMergeService rocketMQAudioMergeService;
+    private final TaskProgressEventBus taskProgressEventBus;
+    private final AudioSegmentCache audioSegmentCache;
+    private final AudioSegmentNormalizer audioSegmentNormalizer;
 
     // 与 synthesize 接口共用临时目录配置
     @Value("${file.storage.local.path:temp/audio}")
     private String localStoragePath;
 
+    @Value("${merge.download.parallelism:8}")
+    private int downloadParallelism;
+
+    @Value("${merge.download.max-attempts:3}")
+    private int downloadMaxAttempts;
+
+    @Value("${merge.download.retry-backoff-ms:500}")
+    private long downloadRetryBackoffMs;
+
+    // 请求未指定时的输出格式和声道
+    @Value("${audio.merge.output.default-format:wav}")
+    private String defaultOutputFormat;
+
+    @Value("${audio.merge.output.default-mono:false}")
+    private boolean defaultOutputMono;
+
+    @Value("${audio.merge.coalesce.enabled:true}")
+    private boolean coalesceEnabled;
+
+    // 超过该时长仍在合并中的记录视为已中断，不再复用
+    @Value("${audio.merge.coalesce.max-age-seconds:1800}")
+    private long coalesceMaxAgeSeconds;
+
+    @Value("${audio.merge.result-cache.enabled:true}")
+    private boolean resultCacheEnabled;
+
     public AudioMergeServiceImpl(AudioMergeMapper audioMergeMapper,
                                  TaskMapper taskMapper,
                                  BreakingSentenceMapper breakingSentenceMapper,
                                  FFmpegService ffmpegService,
                                  ObsStorageService obsStorageService,
-                                 RocketMQAudioMergeService rocketMQAudioMergeService) {
+                                 RocketMQAudioMergeService rocketMQAudioMergeService,
+                                 TaskProgressEventBus taskProgressEventBus,
+                                 AudioSegmentCache audioSegmentCache,
+                                 AudioSegmentNormalizer audioSegmentNormalizer) {
         this.audioMergeMapper = audioMergeMapper;
         this.taskMapper = taskMapper;
         this.breakingSentenceMapper = breakingSentenceMapper;
         this.ffmpegService = ffmpegService;
         this.obsStorageService = obsStorageService;
         this.rocketMQAudioMergeService = rocketMQAudioMergeService;
+        this.taskProgressEventBus = taskProgressEventBus;
+        this.audioSegmentCache = audioSegmentCache;
+        this.audioSegmentNormalizer = audioSegmentNormalizer;
     }
 
     @Override
     public AudioMergeResponseDTO mergeAudio(Long taskId, AudioMergeRequest request) {
         ValidationUtil.notNull(taskId, "taskid不能为空");
-        
-        // 检查 FFmpeg 是否可用
-        if (!ffmpegService.isFFmpegAvailable()) {
-            // 更新任务状态为合并失败
-            updateTaskStatus(taskId, TaskStatus.Status.MERGE_FAILED);
-            throw new BusinessException(10500, "FFmpeg 不可用，无法合并音频");
-        }
+        AudioOutputProfile outputProfile = resolveOutputProfile(request);
         
         Task task = taskMapper.selectById(taskId);
         if (task == null) {
@@ -101,26 +147,68 @@ public class AudioMergeServiceImpl implements AudioMergeService {
             throw new BusinessException(10404, "没有可合并的断句");
         }
 
+        String breakingSentenceIds = toMerge.stream()
+                .map(BreakingSentence::getBreakingSentenceId)
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        String contentFingerprint = buildContentFingerprint(toMerge, outputProfile);
+
+        // 内容与上次成功合并完全相同时直接返回已有结果
+        if (resultCacheEnabled) {
+            AudioMerge reusable = audioMergeMapper.selectLatestCompletedByFingerprint(taskId, contentFingerprint);
+            if (reusable != null && StringUtils.hasText(reusable.getMergedAudioUrl())) {
+                return reuseMergeResult(task, reusable);
+            }
+        }
+
+        // 同一任务、相同断句音频和输出参数的合并正在进行时，直接复用其 mergeId，不重复合并
+        String inflightKey = coalesceEnabled ? buildInflightKey(taskId, contentFingerprint) : null;
+        AudioMerge inflight = findInflightMerge(inflightKey);
+        if (inflight != null) {
+            logger.info("相同的音频合并正在进行，复用已有合并记录，taskId: {}, mergeId: {}", taskId, inflight.getMergeId());
+            return new AudioMergeResponseDTO(inflight.getMergeId());
+        }
+
+        // 输出 WAV 且断句都已是标准格式时直接拼接，不需要 FFmpeg；否则检查 FFmpeg 是否可用
+        boolean allCanonical = toMerge.stream()
+                .allMatch(bs -> audioSegmentNormalizer.isCanonical(bs.getAudioFormat()));
+        if ((!allCanonical || !outputProfile.isPassthrough()) && !ffmpegService.isFFmpegAvailable()) {
+            // 更新任务状态为合并失败
+            updateTaskStatus(taskId, TaskStatus.Status.MERGE_FAILED);
+            throw new BusinessException(10500, "FFmpeg 不可用，无法合并音频");
+        }
+
         // 创建合并记录，状态为 processing
         // 注意：breaking_sentence_ids 会在实际合并后更新为实际合并的断句ID
         String mergedUrl = buildMergedAudioUrl(taskId);
         AudioMerge audioMerge = new AudioMerge();
         audioMerge.setTaskId(taskId);
-        audioMerge.setBreakingSentenceIds(
-                toMerge.stream()
-                        .map(BreakingSentence::getBreakingSentenceId)
-                        .map(String::valueOf)
-                        .collect(Collectors.joining(",")));
+        audioMerge.setBreakingSentenceIds(breakingSentenceIds);
         audioMerge.setMergedAudioUrl(mergedUrl);
         audioMerge.setAudioDuration(0);
         audioMerge.setStatus(AudioMergeStatus.Status.PROCESSING); // 合并中
-        audioMergeMapper.insert(audioMerge);
+        audioMerge.setInflightKey(inflightKey);
+        try {
+            audioMergeMapper.insert(audioMerge);
+        } catch (DuplicateKeyException e) {
+            // 并发的相同请求已先插入合并记录
+            AudioMerge existing = audioMergeMapper.selectByInflightKey(inflightKey);
+            if (existing == null) {
+                throw e;
+            }
+            logger.info("并发的相同音频合并请求，复用已有合并记录，taskId: {}, mergeId: {}", taskId, existing.getMergeId());
+            return new AudioMergeResponseDTO(existing.getMergeId());
+        }
 
         // 发送消息到 RocketMQ，异步处理
         AudioMergeMessage mergeMessage = new AudioMergeMessage(
             taskId, 
             audioMerge.getMergeId()
         );
+        mergeMessage.setOutputFormat(outputProfile.getFormat());
+        mergeMessage.setBitrateKbps(outputProfile.getBitrateKbps());
+        mergeMessage.setMono(outputProfile.isMono());
         
         boolean success = rocketMQAudioMergeService.sendAudioMergeMessage(mergeMessage);
         if (!success) {
@@ -133,6 +221,7 @@ public class AudioMergeServiceImpl implements AudioMergeService {
         
         // 消息发送成功，更新任务状态为合并中
         updateTaskStatus(taskId, TaskStatus.Status.MERGE_PROCESSING);
+        taskProgressEventBus.publish(TaskProgressEvent.merge(audioMerge));
         
         logger.info("音频合并任务已发送到消息队列，taskId: {}, mergeId: {}", taskId, audioMerge.getMergeId());
         return new AudioMergeResponseDTO(audioMerge.getMergeId());
@@ -200,38 +289,13 @@ public class AudioMergeServiceImpl implements AudioMergeService {
                 logger.info("创建本地存储目录: {}", localDir.toAbsolutePath());
             }
             
-            // 2. 下载所有音频文件到本地临时目录（与 synthesize 接口共用）
-            // 只下载有 audio_url 的断句，跳过没有音频的断句
-            logger.info("开始下载音频文件，任务ID: {}, 断句数量: {}", taskId, toMerge.size());
+            // 2. 并发下载所有音频文件到本地临时目录（与 synthesize 接口共用），结果按 sequence 顺序排列
             long timestamp = System.currentTimeMillis();
+            List<SegmentDownload> downloads = downloadSegments(taskId, audioMerge, toMerge, localDir, timestamp);
             List<BreakingSentence> validSentences = new ArrayList<>(); // 记录实际有音频的断句
-            
-            for (int i = 0; i < toMerge.size(); i++) {
-                BreakingSentence bs = toMerge.get(i);
-                String audioUrl = bs.getAudioUrl();
-                
-                // 跳过没有 audio_url 的断句
-                if (!StringUtils.hasText(audioUrl)) {
-                    logger.warn("跳过没有音频URL的断句，breakingSentenceId: {}, sequence: {}", 
-                        bs.getBreakingSentenceId(), bs.getSequence());
-                    continue;
-                }
-                
-                // 使用 merge_ 前缀区分合并任务的临时文件
-                String fileName = String.format("merge_input_%d_%d_%d_%d.wav", 
-                    taskId, bs.getBreakingSentenceId(), validSentences.size(), timestamp);
-                File tempFile = localDir.resolve(fileName).toFile();
-                
-                try {
-                    downloadAudioFile(audioUrl, tempFile);
-                    tempInputFiles.add(tempFile);
-                    validSentences.add(bs);
-                    logger.info("下载音频文件成功: {} -> {}", audioUrl, tempFile.getAbsolutePath());
-                } catch (Exception e) {
-                    // 下载失败时，记录日志但不抛出异常，继续处理其他断句
-                    logger.warn("下载音频文件失败，跳过该断句，URL: {}, breakingSentenceId: {}, 错误: {}", 
-                        audioUrl, bs.getBreakingSentenceId(), e.getMessage());
-                }
+            for (SegmentDownload download : downloads) {
+                tempInputFiles.add(download.getFile());
+                validSentences.add(download.getSentence());
             }
             
             // 检查是否有可合并的音频文件
@@ -242,15 +306,17 @@ public class AudioMergeServiceImpl implements AudioMergeService {
             logger.info("实际可合并的音频文件数量: {}/{}", tempInputFiles.size(), toMerge.size());
             
             // 3. 使用 FFmpeg 合并音频
-            String outputFileName = String.format("merge_output_%d_%d.wav", taskId, timestamp);
+            AudioOutputProfile outputProfile = toOutputProfile(mergeMessage);
+            String extension = outputProfile.getFileExtension();
+            String outputFileName = String.format("merge_output_%d_%d.%s", taskId, timestamp, extension);
             tempOutputFile = localDir.resolve(outputFileName).toFile();
-            logger.info("开始合并音频，输出文件: {}", tempOutputFile.getAbsolutePath());
+            logger.info("开始合并音频，输出文件: {}, 输出参数: {}", tempOutputFile.getAbsolutePath(), outputProfile);
             
-            int mergedDuration = ffmpegService.mergeAudioFiles(tempInputFiles, tempOutputFile);
+            int mergedDuration = ffmpegService.mergeAudioFiles(tempInputFiles, tempOutputFile, outputProfile);
             logger.info("音频合并成功，时长: {}ms", mergedDuration);
             
             // 4. 上传合并后的音频到 OBS
-            String obsFileName = "task_" + taskId + "_merged_" + timestamp + ".wav";
+            String obsFileName = "task_" + taskId + "_merged_" + timestamp + "." + extension;
             String objectKey = obsStorageService.buildObjectKey(obsFileName);
             String mergedUrl = obsStorageService.uploadFromFile(tempOutputFile, objectKey);
             logger.info("合并音频上传到OBS成功: {}", mergedUrl);
@@ -265,8 +331,10 @@ public class AudioMergeServiceImpl implements AudioMergeService {
             audioMerge.setBreakingSentenceIds(actualSentenceIds);
             audioMerge.setMergedAudioUrl(mergedUrl);
             audioMerge.setAudioDuration(mergedDuration);
+            audioMerge.setContentFingerprint(buildContentFingerprint(validSentences, outputProfile));
             audioMerge.setStatus(AudioMergeStatus.Status.COMPLETED); // 合并完成
             audioMergeMapper.updateById(audioMerge);
+            taskProgressEventBus.publish(TaskProgressEvent.merge(audioMerge));
             
             // 6. 更新任务信息
             task.setMergedAudioUrl(mergedUrl);
@@ -303,6 +371,142 @@ public class AudioMergeServiceImpl implements AudioMergeService {
     }
 
 
+    /**
+     * 并发下载断句音频
+     * 虚拟线程执行、信号量限制同时下载数；单个断句下载失败按退避重试，重试仍失败则跳过该断句。
+     * 下载过程中按进度推送 merge 事件
+     *
+     * @return 下载成功的断句及其本地文件，按 toMerge 的顺序排列
+     */
+    private List<SegmentDownload> downloadSegments(Long taskId, AudioMerge audioMerge, List<BreakingSentence> toMerge,
+                                                   Path localDir, long timestamp) {
+        int total = toMerge.size();
+        logger.info("开始下载音频文件，任务ID: {}, 断句数量: {}, 并发数: {}", taskId, total, downloadParallelism);
+        SegmentDownload[] results = new SegmentDownload[total];
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger reportedStep = new AtomicInteger();
+        Semaphore permits = new Semaphore(Math.max(downloadParallelism, 1));
+        long startNanos = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < total; i++) {
+                int index = i;
+                BreakingSentence bs = toMerge.get(i);
+                executor.submit(() -> {
+                    try {
+                        permits.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    try {
+                        // 使用 merge_ 前缀区分合并任务的临时文件
+                        String fileName = String.format("merge_input_%d_%d_%d_%d.wav",
+                                taskId, bs.getBreakingSentenceId(), index, timestamp);
+                        File tempFile = localDir.resolve(fileName).toFile();
+                        if (downloadWithRetry(bs, tempFile)) {
+                            results[index] = new SegmentDownload(bs, tempFile);
+                        }
+                    } finally {
+                        permits.release();
+                        reportDownloadProgress(audioMerge, finished.incrementAndGet(), total, reportedStep);
+                    }
+                });
+            }
+        }
+
+        List<SegmentDownload> downloads = new ArrayList<>(total);
+        for (SegmentDownload result : results) {
+            if (result != null) {
+                downloads.add(result);
+            }
+        }
+        logger.info("音频文件下载完成，任务ID: {}, 成功: {}/{}, 耗时: {}ms", taskId, downloads.size(), total,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return downloads;
+    }
+
+    /**
+     * 获取单个断句音频：优先取本地磁盘缓存，未命中时下载（失败按退避重试），下载成功后写回缓存
+     *
+     * @return 是否获取成功；失败时已删除不完整的文件
+     */
+    private boolean downloadWithRetry(BreakingSentence bs, File tempFile) {
+        String audioUrl = bs.getAudioUrl();
+        if (audioSegmentCache.copyTo(audioUrl, tempFile.toPath())) {
+            logger.debug("断句音频命中磁盘缓存，breakingSentenceId: {}", bs.getBreakingSentenceId());
+            return true;
+        }
+        int maxAttempts = Math.max(downloadMaxAttempts, 1);
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                downloadAudioFile(audioUrl, tempFile);
+                logger.debug("下载音频文件成功: {} -> {}", audioUrl, tempFile.getAbsolutePath());
+                audioSegmentCache.put(audioUrl, tempFile.toPath());
+                return true;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    // 下载失败时，记录日志但不抛出异常，继续处理其他断句
+                    logger.warn("下载音频文件失败，跳过该断句，URL: {}, breakingSentenceId: {}, 已尝试{}次, 错误: {}",
+                            audioUrl, bs.getBreakingSentenceId(), attempt, e.getMessage());
+                    break;
+                }
+                logger.info("下载音频文件失败，第{}次尝试，稍后重试，breakingSentenceId: {}, 错误: {}",
+                        attempt, bs.getBreakingSentenceId(), e.getMessage());
+                try {
+                    Thread.sleep(downloadRetryBackoffMs * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        try {
+            Files.deleteIfExists(tempFile.toPath());
+        } catch (Exception e) {
+            logger.warn("删除不完整的临时文件失败: {}", tempFile.getAbsolutePath(), e);
+        }
+        return false;
+    }
+
+    /**
+     * 下载进度每前进 10% 记录一次日志并推送 merge 事件
+     */
+    private void reportDownloadProgress(AudioMerge audioMerge, int finished, int total, AtomicInteger reportedStep) {
+        int step = finished * PROGRESS_STEPS / total;
+        int previous = reportedStep.get();
+        if (step <= previous || !reportedStep.compareAndSet(previous, step)) {
+            return;
+        }
+        logger.info("音频文件下载进度，taskId: {}, mergeId: {}, {}/{}",
+                audioMerge.getTaskId(), audioMerge.getMergeId(), finished, total);
+        TaskProgressEvent event = TaskProgressEvent.merge(audioMerge);
+        event.setCompletedSegments(finished);
+        event.setTotalSegments(total);
+        taskProgressEventBus.publish(event);
+    }
+
+    /**
+     * 下载成功的断句音频
+     */
+    private static final class SegmentDownload {
+        private final BreakingSentence sentence;
+        private final File file;
+
+        SegmentDownload(BreakingSentence sentence, File file) {
+            this.sentence = sentence;
+            this.file = file;
+        }
+
+        BreakingSentence getSentence() {
+            return sentence;
+        }
+
+        File getFile() {
+            return file;
+        }
+    }
+
     /**
      * 下载音频文件到本地
      * 与 synthesize 接口使用相同的下载逻辑
@@ -330,8 +534,6 @@ public class AudioMergeServiceImpl implements AudioMergeService {
                 logger.debug("文件下载完成，总大小: {} bytes", totalBytes);
             }
         } catch (Exception e) {
-            logger.error("下载音频文件失败，URL: {}, localFile: {}", audioUrl, 
-                localFile.getAbsolutePath(), e);
             throw new RuntimeException("下载音频文件失败: " + e.getMessage(), e);
         }
     }
@@ -365,6 +567,7 @@ public class AudioMergeServiceImpl implements AudioMergeService {
             if (audioMerge != null) {
                 audioMerge.setStatus(status);
                 audioMergeMapper.updateById(audioMerge);
+                taskProgressEventBus.publish(TaskProgressEvent.merge(audioMerge));
             }
         } catch (Exception e) {
             logger.error("更新合并状态失败，mergeId: {}", mergeId, e);
@@ -387,6 +590,97 @@ public class AudioMergeServiceImpl implements AudioMergeService {
         }
     }
 
+    /**
+     * 复用已完成的合并结果：任务信息指向该结果，直接返回合并后的URL
+     */
+    private AudioMergeResponseDTO reuseMergeResult(Task task, AudioMerge reusable) {
+        Long taskId = task.getTaskId();
+        task.setMergedAudioUrl(reusable.getMergedAudioUrl());
+        task.setMergedAudioDuration(reusable.getAudioDuration());
+        taskMapper.updateById(task);
+        updateTaskStatus(taskId, TaskStatus.Status.MERGE_SUCCESS);
+        taskProgressEventBus.publish(TaskProgressEvent.merge(reusable));
+        logger.info("合并内容未变化，复用已有合并结果，taskId: {}, mergeId: {}, mergedUrl: {}",
+                taskId, reusable.getMergeId(), reusable.getMergedAudioUrl());
+
+        AudioMergeResponseDTO response = new AudioMergeResponseDTO(reusable.getMergeId());
+        response.setMergedAudioUrl(reusable.getMergedAudioUrl());
+        response.setAudioDuration(reusable.getAudioDuration());
+        return response;
+    }
+
+    /**
+     * 合并内容指纹：按顺序的 (断句ID, 音频URL, 时长) + 输出参数。
+     * 断句重新合成后音频URL会变化（OBS对象键带时间戳），指纹随之变化
+     */
+    private static String buildContentFingerprint(List<BreakingSentence> sentences, AudioOutputProfile outputProfile) {
+        StringBuilder builder = new StringBuilder(sentences.size() * 96);
+        for (BreakingSentence sentence : sentences) {
+            builder.append(sentence.getBreakingSentenceId()).append('|')
+                    .append(sentence.getAudioUrl()).append('|')
+                    .append(sentence.getAudioDuration()).append('\n');
+        }
+        builder.append(outputProfile);
+        return HashUtil.sha256Hex(builder.toString());
+    }
+
+    /**
+     * 合并去重指纹：任务ID + 合并内容指纹。
+     * 包含音频URL和时长，合并进行中有断句重新合成时，新的请求不会复用基于旧音频的合并
+     */
+    private static String buildInflightKey(Long taskId, String contentFingerprint) {
+        return HashUtil.sha256Hex(taskId + "|" + contentFingerprint);
+    }
+
+    /**
+     * 查询指纹相同且仍在合并中的记录；超时未结束的记录标记为失败，不再复用
+     */
+    private AudioMerge findInflightMerge(String inflightKey) {
+        if (inflightKey == null) {
+            return null;
+        }
+        AudioMerge inflight = audioMergeMapper.selectByInflightKey(inflightKey);
+        if (inflight == null) {
+            return null;
+        }
+        LocalDateTime createdAt = inflight.getCreatedAt();
+        if (createdAt != null && createdAt.plusSeconds(coalesceMaxAgeSeconds).isBefore(LocalDateTime.now())) {
+            logger.warn("合并记录超过{}秒仍未结束，视为已中断并标记为失败，mergeId: {}, 创建时间: {}",
+                    coalesceMaxAgeSeconds, inflight.getMergeId(), createdAt);
+            updateMergeStatus(inflight.getMergeId(), AudioMergeStatus.Status.FAILED);
+            return null;
+        }
+        return inflight;
+    }
+
+    /**
+     * 校验并补全请求中的输出参数
+     */
+    private AudioOutputProfile resolveOutputProfile(AudioMergeRequest request) {
+        String format = request != null && StringUtils.hasText(request.getFormat())
+                ? request.getFormat().trim().toLowerCase() : defaultOutputFormat;
+        ValidationUtil.isTrue(AudioOutputFormat.isSupported(format), "不支持的输出格式: " + format);
+        boolean mono = request != null && request.getMono() != null ? request.getMono() : defaultOutputMono;
+        if (AudioOutputFormat.WAV.equals(format)) {
+            return new AudioOutputProfile(format, null, mono);
+        }
+        Integer bitrate = request != null ? request.getBitrate() : null;
+        if (bitrate == null) {
+            bitrate = AudioOutputFormat.defaultBitrateKbps(format);
+        }
+        ValidationUtil.isTrue(bitrate >= AudioOutputFormat.MIN_BITRATE_KBPS && bitrate <= AudioOutputFormat.MAX_BITRATE_KBPS,
+                "码率需在" + AudioOutputFormat.MIN_BITRATE_KBPS + "-" + AudioOutputFormat.MAX_BITRATE_KBPS + "kbps之间");
+        return new AudioOutputProfile(format, bitrate, mono);
+    }
+
+    private static AudioOutputProfile toOutputProfile(AudioMergeMessage mergeMessage) {
+        if (!StringUtils.hasText(mergeMessage.getOutputFormat())) {
+            return AudioOutputProfile.wav();
+        }
+        return new AudioOutputProfile(mergeMessage.getOutputFormat(), mergeMessage.getBitrateKbps(),
+                Boolean.TRUE.equals(mergeMessage.getMono()));
+    }
+
     private String buildMergedAudioUrl(Long taskId) {
         // 临时URL，实际URL会在上传OBS后更新
         return "https://example.com/audio/task_" + taskId + "_merged.wav";
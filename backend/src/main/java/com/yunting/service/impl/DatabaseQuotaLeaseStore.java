@@ -0,0 +1,38 @@
+package com.yunting.service.impl;
+
+import com.yunting.mapper.QuotaLeaseMapper;
+import com.yunting.model.QuotaLease;
+import com.yunting.service.QuotaLeaseStore;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 基于 MySQL 的配额租约存储
+ * 租约到期时间使用数据库时钟，节点之间无需时钟同步
+ */
+@Service
+public class DatabaseQuotaLeaseStore implements QuotaLeaseStore {
+
+    // 过期租约保留一段时间再清理，便于排查节点下线情况
+    private static final int EXPIRED_RETAIN_SECONDS = 600;
+
+    private final QuotaLeaseMapper quotaLeaseMapper;
+
+    public DatabaseQuotaLeaseStore(QuotaLeaseMapper quotaLeaseMapper) {
+        this.quotaLeaseMapper = quotaLeaseMapper;
+    }
+
+    @Override
+    public List<QuotaLease> renewAndList(String resource, String nodeId, double demandRate,
+                                         double allocatedRate, long ttlMillis) {
+        quotaLeaseMapper.upsert(resource, nodeId, demandRate, allocatedRate, ttlMillis);
+        quotaLeaseMapper.deleteExpired(resource, EXPIRED_RETAIN_SECONDS);
+        return quotaLeaseMapper.selectActive(resource);
+    }
+
+    @Override
+    public void release(String resource, String nodeId) {
+        quotaLeaseMapper.delete(resource, nodeId);
+    }
+}
@@ -1,10 +1,15 @@
 package com.yunting.service.impl;
 
+import com.yunting.constant.AudioOutputFormat;
+import com.yunting.dto.audio.AudioOutputProfile;
 import com.yunting.service.FFmpegService;
+import com.yunting.util.AudioDurationUtil;
+import com.yunting.util.WavUtil;
 import net.bramp.ffmpeg.FFmpeg;
 import net.bramp.ffmpeg.FFmpegExecutor;
 import net.bramp.ffmpeg.FFprobe;
 import net.bramp.ffmpeg.builder.FFmpegBuilder;
+import net.bramp.ffmpeg.builder.FFmpegOutputBuilder;
 import net.bramp.ffmpeg.probe.FFmpegProbeResult;
 import net.bramp.ffmpeg.probe.FFmpegStream;
 import org.slf4j.Logger;
@@ -14,7 +19,13 @@ import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class FFmpegServiceImpl implements FFmpegService {
@@ -30,6 +41,25 @@ public class FFmpegServiceImpl implements FFmpegService {
     @Value("${ffmpeg.timeout:300000}")
     private long ffmpegTimeout; // 默认5分钟超时
     
+    @Value("${audio.merge.wav-concat.enabled:true}")
+    private boolean wavConcatEnabled;
+    
+    /**
+     * FFmpeg 合并的输出采样率和声道数，与断句音频的标准格式（AudioSegmentNormalizer）一致，
+     * 无论走直接拼接还是 FFmpeg 合并，同一任务的合并结果格式都相同
+     */
+    @Value("${audio.normalize.sample-rate:16000}")
+    private int outputSampleRate;
+    
+    @Value("${audio.normalize.channels:1}")
+    private int outputChannels;
+    
+    @Value("${audio.merge.tree.fan-in:32}")
+    private int treeFanIn;
+    
+    @Value("${audio.merge.tree.parallelism:0}")
+    private int treeParallelism;
+    
     private FFmpeg ffmpeg;
     private FFprobe ffprobe;
     private FFmpegExecutor executor;
@@ -71,26 +101,23 @@ public class FFmpegServiceImpl implements FFmpegService {
             outputDir.mkdirs();
         }
         
+        // 输入都是格式相同的 PCM WAV 时直接拼接数据块，不需要启动 FFmpeg 解码重编码
+        if (wavConcatEnabled) {
+            Integer duration = tryConcatWav(inputFiles, outputFile);
+            if (duration != null) {
+                return duration;
+            }
+        }
+        
         initFFmpeg();
         
+        // 输入文件过多时分层合并，避免单条命令的输入数和参数过长
+        if (treeFanIn >= 2 && inputFiles.size() > treeFanIn) {
+            return mergeHierarchically(inputFiles, outputFile);
+        }
+        
         try {
-            // 构建 FFmpeg 命令
-            FFmpegBuilder builder = buildMergeCommand(inputFiles, outputFile);
-            
-            logger.info("执行 FFmpeg 合并命令，输入文件数: {}, 输出文件: {}", 
-                inputFiles.size(), outputFile.getAbsolutePath());
-            
-            // 执行命令
-            executor.createJob(builder).run();
-            
-            // 验证输出文件是否存在
-            if (!outputFile.exists() || outputFile.length() == 0) {
-                throw new RuntimeException("合并后的音频文件不存在或为空: " + 
-                    outputFile.getAbsolutePath());
-            }
-            
-            logger.info("音频合并成功，输出文件: {}, 大小: {} bytes", 
-                outputFile.getAbsolutePath(), outputFile.length());
+            runMergeCommand(inputFiles, outputFile);
             
             // 获取合并后的音频时长
             return getAudioDuration(outputFile);
@@ -101,6 +128,28 @@ public class FFmpegServiceImpl implements FFmpegService {
         }
     }
 
+    @Override
+    public int mergeAudioFiles(List<File> inputFiles, File outputFile, AudioOutputProfile profile) {
+        if (profile == null || profile.isPassthrough()) {
+            return mergeAudioFiles(inputFiles, outputFile);
+        }
+        
+        // 先合并为 PCM WAV（格式一致时直接拼接），再整体编码一次
+        File pcmFile = new File(outputFile.getParentFile(), outputFile.getName() + ".pcm.wav");
+        try {
+            int durationMs = mergeAudioFiles(inputFiles, pcmFile);
+            long start = System.currentTimeMillis();
+            encodeAudio(pcmFile, outputFile, profile);
+            logger.info("合并音频编码完成，输出参数: {}, 编码前: {} bytes, 编码后: {} bytes, 耗时: {}ms",
+                profile, pcmFile.length(), outputFile.length(), System.currentTimeMillis() - start);
+            return durationMs;
+        } finally {
+            if (pcmFile.exists() && !pcmFile.delete()) {
+                logger.warn("删除合并中间文件失败: {}", pcmFile.getAbsolutePath());
+            }
+        }
+    }
+
     @Override
     public int getAudioDuration(File audioFile) {
         if (audioFile == null || !audioFile.exists() || !audioFile.isFile()) {
@@ -108,6 +157,18 @@ public class FFmpegServiceImpl implements FFmpegService {
                 (audioFile != null ? audioFile.getAbsolutePath() : "null"));
         }
         
+        // WAV、MP3 直接解析文件头，不启动 ffprobe 进程
+        try {
+            long durationMicros = AudioDurationUtil.probeDurationMicros(audioFile);
+            if (durationMicros >= 0) {
+                int durationMs = (int) (durationMicros / 1000);
+                logger.debug("解析文件头得到音频时长: {}ms，文件: {}", durationMs, audioFile.getAbsolutePath());
+                return durationMs;
+            }
+        } catch (Exception e) {
+            logger.warn("解析音频文件头失败，改用 FFprobe，文件: {}, 错误: {}", audioFile.getAbsolutePath(), e.getMessage());
+        }
+        
         initFFmpeg();
         
         try {
@@ -145,6 +206,37 @@ public class FFmpegServiceImpl implements FFmpegService {
         }
     }
 
+    @Override
+    public void convertToPcmWav(File inputFile, File outputFile, int sampleRate, int channels) {
+        if (inputFile == null || !inputFile.exists() || !inputFile.isFile()) {
+            throw new IllegalArgumentException("音频文件不存在: " + 
+                (inputFile != null ? inputFile.getAbsolutePath() : "null"));
+        }
+        
+        initFFmpeg();
+        
+        try {
+            FFmpegBuilder builder = new FFmpegBuilder()
+                .setInput(inputFile.getAbsolutePath())
+                .overrideOutputFiles(true)
+                .addOutput(outputFile.getAbsolutePath())
+                    .setFormat("wav")
+                    .setAudioCodec("pcm_s16le")
+                    .setAudioSampleRate(sampleRate)
+                    .setAudioChannels(channels)
+                    .done();
+            executor.createJob(builder).run();
+            
+            if (!outputFile.exists() || outputFile.length() == 0) {
+                throw new RuntimeException("转换后的音频文件不存在或为空: " + outputFile.getAbsolutePath());
+            }
+            logger.debug("音频格式转换完成，输入: {}, 输出: {}", inputFile.getAbsolutePath(), outputFile.getAbsolutePath());
+        } catch (Exception e) {
+            logger.error("音频格式转换失败，文件: {}", inputFile.getAbsolutePath(), e);
+            throw new RuntimeException("音频格式转换失败: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public boolean isFFmpegAvailable() {
         try {
@@ -158,6 +250,188 @@ public class FFmpegServiceImpl implements FFmpegService {
         }
     }
     
+    /**
+     * 执行一次 FFmpeg 合并命令并校验输出文件
+     */
+    private void runMergeCommand(List<File> inputFiles, File outputFile) {
+        // 构建 FFmpeg 命令
+        FFmpegBuilder builder = buildMergeCommand(inputFiles, outputFile);
+        
+        logger.info("执行 FFmpeg 合并命令，输入文件数: {}, 输出文件: {}", 
+            inputFiles.size(), outputFile.getAbsolutePath());
+        
+        // 执行命令
+        executor.createJob(builder).run();
+        
+        // 验证输出文件是否存在
+        if (!outputFile.exists() || outputFile.length() == 0) {
+            throw new RuntimeException("合并后的音频文件不存在或为空: " + 
+                outputFile.getAbsolutePath());
+        }
+        
+        logger.info("音频合并成功，输出文件: {}, 大小: {} bytes", 
+            outputFile.getAbsolutePath(), outputFile.length());
+    }
+    
+    /**
+     * 分层合并：每 treeFanIn 个文件一组并行合并为中间文件，逐层向上直到剩余文件数不超过 treeFanIn，
+     * 最后一层走常规合并流程。中间文件统一为相同的 PCM 格式，最后一层通常可以直接拼接
+     */
+    private int mergeHierarchically(List<File> inputFiles, File outputFile) {
+        File workDir = new File(outputFile.getParentFile(),
+            "merge_tree_" + System.currentTimeMillis() + "_" + Thread.currentThread().threadId());
+        if (!workDir.mkdirs()) {
+            throw new RuntimeException("创建分层合并临时目录失败: " + workDir.getAbsolutePath());
+        }
+        int parallelism = treeParallelism > 0 ? treeParallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "AudioMergeTree-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.currentTimeMillis();
+        try {
+            List<File> level = inputFiles;
+            int depth = 0;
+            while (level.size() > treeFanIn) {
+                depth++;
+                level = mergeLevel(level, workDir, depth, pool);
+            }
+            logger.info("分层合并中间层完成，输入文件数: {}, 层数: {}, 并行度: {}, 耗时: {}ms",
+                inputFiles.size(), depth, parallelism, System.currentTimeMillis() - start);
+            return mergeAudioFiles(level, outputFile);
+        } finally {
+            pool.shutdownNow();
+            deleteDirectory(workDir);
+        }
+    }
+    
+    /**
+     * 合并一层：按顺序分组并行合并，返回按原顺序排列的中间文件
+     */
+    private List<File> mergeLevel(List<File> inputs, File workDir, int depth, ExecutorService pool) {
+        List<Future<File>> futures = new ArrayList<>();
+        for (int from = 0, index = 0; from < inputs.size(); from += treeFanIn, index++) {
+            List<File> chunk = inputs.subList(from, Math.min(from + treeFanIn, inputs.size()));
+            File chunkOutput = new File(workDir, String.format("level%d_%05d.wav", depth, index));
+            futures.add(pool.submit(() -> {
+                runMergeCommand(chunk, chunkOutput);
+                return chunkOutput;
+            }));
+        }
+        List<File> outputs = new ArrayList<>(futures.size());
+        try {
+            for (Future<File> future : futures) {
+                outputs.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("分层合并被中断", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.error("分层合并失败，层级: {}", depth, cause);
+            throw new RuntimeException("FFmpeg 分层合并失败: " + cause.getMessage(), cause);
+        }
+        // 上一层的中间文件已合并完，及时删除以节省磁盘
+        if (depth > 1) {
+            inputs.forEach(File::delete);
+        }
+        logger.info("分层合并第{}层完成，{}个文件合并为{}个", depth, inputs.size(), outputs.size());
+        return outputs;
+    }
+    
+    private void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    logger.warn("删除分层合并临时文件失败: {}", file.getAbsolutePath());
+                }
+            }
+        }
+        if (!dir.delete()) {
+            logger.warn("删除分层合并临时目录失败: {}", dir.getAbsolutePath());
+        }
+    }
+    
+    /**
+     * 按输出参数编码音频
+     */
+    private void encodeAudio(File inputFile, File outputFile, AudioOutputProfile profile) {
+        initFFmpeg();
+        
+        try {
+            FFmpegOutputBuilder output = new FFmpegBuilder()
+                .setInput(inputFile.getAbsolutePath())
+                .overrideOutputFiles(true)
+                .addOutput(outputFile.getAbsolutePath());
+            String format = profile.getFormat();
+            if (AudioOutputFormat.MP3.equals(format)) {
+                output.setFormat("mp3").setAudioCodec("libmp3lame");
+            } else if (AudioOutputFormat.AAC.equals(format)) {
+                // faststart 把索引放到文件头，边下边播
+                output.setFormat("mp4").setAudioCodec("aac").addExtraArgs("-movflags", "+faststart");
+            } else if (AudioOutputFormat.OPUS.equals(format)) {
+                output.setFormat("ogg").setAudioCodec("libopus");
+            } else {
+                output.setFormat("wav").setAudioCodec("pcm_s16le");
+            }
+            if (profile.getBitrateKbps() != null && !AudioOutputFormat.WAV.equals(format)) {
+                output.setAudioBitRate(profile.getBitrateKbps() * 1000L);
+            }
+            if (profile.isMono()) {
+                output.setAudioChannels(1);
+            }
+            executor.createJob(output.done()).run();
+            
+            if (!outputFile.exists() || outputFile.length() == 0) {
+                throw new RuntimeException("编码后的音频文件不存在或为空: " + outputFile.getAbsolutePath());
+            }
+        } catch (Exception e) {
+            logger.error("音频编码失败，输出参数: {}", profile, e);
+            throw new RuntimeException("音频编码失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 尝试直接拼接 PCM WAV 文件
+     * 保持输入文件的采样率和声道数，时长按数据字节数计算
+     *
+     * @return 合并后的音频时长（毫秒）；输入格式不一致或不是 PCM WAV 时返回 null，由 FFmpeg 合并
+     */
+    private Integer tryConcatWav(List<File> inputFiles, File outputFile) {
+        try {
+            List<WavUtil.WavFormat> formats = new ArrayList<>(inputFiles.size());
+            for (File file : inputFiles) {
+                WavUtil.WavFormat format = WavUtil.readFormat(file);
+                if (format == null || format.getAudioFormat() != WavUtil.FORMAT_PCM
+                        || (!formats.isEmpty() && !formats.get(0).isSameFormat(format))) {
+                    logger.info("输入音频不是格式一致的 PCM WAV，使用 FFmpeg 合并，文件: {}, 格式: {}",
+                        file.getName(), format);
+                    return null;
+                }
+                formats.add(format);
+            }
+            
+            long start = System.currentTimeMillis();
+            long dataBytes = WavUtil.concat(inputFiles, formats, outputFile);
+            int durationMs = WavUtil.durationMillis(dataBytes, formats.get(0));
+            logger.info("WAV 直接拼接成功，输入文件数: {}, 输出文件: {}, 大小: {} bytes, 时长: {}ms, 耗时: {}ms",
+                inputFiles.size(), outputFile.getAbsolutePath(), outputFile.length(), durationMs,
+                System.currentTimeMillis() - start);
+            return durationMs;
+        } catch (Exception e) {
+            logger.warn("WAV 直接拼接失败，改用 FFmpeg 合并，错误: {}", e.getMessage());
+            if (outputFile.exists() && !outputFile.delete()) {
+                logger.debug("删除未完成的拼接文件失败: {}", outputFile.getAbsolutePath());
+            }
+            return null;
+        }
+    }
+    
     /**
      * 构建 FFmpeg 合并命令
      * 使用 filter_complex 进行音频合并，支持不同格式的音频文件
@@ -192,8 +466,8 @@ public class FFmpegServiceImpl implements FFmpegService {
         builder.addOutput(outputFile.getAbsolutePath())
                .setFormat("wav")
                .setAudioCodec("pcm_s16le")  // WAV 使用 PCM 编码（16位小端）
-               .setAudioSampleRate(44100)    // 采样率 44100Hz
-               .setAudioChannels(2)          // 立体声
+               .setAudioSampleRate(outputSampleRate)  // 与断句标准格式相同的采样率
+               .setAudioChannels(outputChannels)      // 与断句标准格式相同的声道数
                .addExtraArgs("-map", "[out]"); // 映射 filter_complex 的输出
         
         return builder;
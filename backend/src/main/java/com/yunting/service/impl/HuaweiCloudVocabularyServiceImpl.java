@@ -1,16 +1,14 @@
 package com.yunting.service.impl;
 
-import com.huaweicloud.sdk.core.auth.BasicCredentials;
-import com.huaweicloud.sdk.core.auth.ICredential;
 import com.huaweicloud.sdk.core.exception.ConnectionException;
 import com.huaweicloud.sdk.core.exception.RequestTimeoutException;
 import com.huaweicloud.sdk.core.exception.ServiceResponseException;
 import com.huaweicloud.sdk.metastudio.v1.MetaStudioClient;
 import com.huaweicloud.sdk.metastudio.v1.model.*;
-import com.huaweicloud.sdk.metastudio.v1.region.MetaStudioRegion;
 import com.yunting.constant.ReadingRuleType;
 import com.yunting.model.ReadingRule;
 import com.yunting.service.HuaweiCloudVocabularyService;
+import com.yunting.service.MetaStudioQuotaManager;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
@@ -22,39 +20,27 @@ import org.springframework.util.StringUtils;
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * 华为云自定义读法服务实现
- * 实现限流：10次/秒
+ * 请求排队后由单个工作线程处理，调用速率由 MetaStudioQuotaManager 控制
  */
 @Service
 public class HuaweiCloudVocabularyServiceImpl implements HuaweiCloudVocabularyService {
 
     private static final Logger logger = LoggerFactory.getLogger(HuaweiCloudVocabularyServiceImpl.class);
 
-    // 限流配置：10次/秒 = 每100毫秒处理一次
-    private static final long RATE_LIMIT_INTERVAL_MS = 100;
+    // 被华为云限流（429）时的最大尝试次数
+    private static final int MAX_THROTTLE_ATTEMPTS = 3;
 
     private final BlockingQueue<VocabularyRequest> requestQueue = new LinkedBlockingQueue<>();
-    private final ScheduledExecutorService rateLimiterExecutor = Executors.newScheduledThreadPool(1);
+    private final MetaStudioQuotaManager quotaManager;
+    private final MetaStudioClient metaStudioClient;
+    private Thread workerThread;
     private volatile boolean running = false;
 
-    @Value("${huaweicloud.ak:}")
-    private String huaweiCloudAk;
-
-    @Value("${huaweicloud.sk:}")
-    private String huaweiCloudSk;
-
-    @Value("${huaweicloud.region:cn-north-4}")
-    private String huaweiCloudRegion;
-
-    @Value("${huaweicloud.project-id:}")
-    private String huaweiCloudProjectId;
-
     @Value("${huaweicloud.vocabulary.group-id:2c9084d59ac09773019b0d2662021381}")
     private String huaweiCloudVocabularyGroupId;
 
@@ -62,7 +48,17 @@ public class HuaweiCloudVocabularyServiceImpl implements HuaweiCloudVocabularySe
      * 请求类型
      */
     private enum RequestType {
-        LIST, CREATE, DELETE, BATCH_DELETE
+        LIST(MetaStudioQuotaManager.Operation.LIST_VOCABULARY),
+        LIST_RESPONSE(MetaStudioQuotaManager.Operation.LIST_VOCABULARY),
+        CREATE(MetaStudioQuotaManager.Operation.CREATE_VOCABULARY),
+        DELETE(MetaStudioQuotaManager.Operation.DELETE_VOCABULARY),
+        BATCH_DELETE(MetaStudioQuotaManager.Operation.DELETE_VOCABULARY);
+
+        private final MetaStudioQuotaManager.Operation operation;
+
+        RequestType(MetaStudioQuotaManager.Operation operation) {
+            this.operation = operation;
+        }
     }
 
     /**
@@ -76,6 +72,7 @@ public class HuaweiCloudVocabularyServiceImpl implements HuaweiCloudVocabularySe
         String vocabularyId;
         List<String> vocabularyIds;
         java.util.concurrent.CompletableFuture<Object> future;
+        int attempts;
 
         VocabularyRequest(RequestType type) {
             this.type = type;
@@ -83,33 +80,49 @@ public class HuaweiCloudVocabularyServiceImpl implements HuaweiCloudVocabularySe
         }
     }
 
+    public HuaweiCloudVocabularyServiceImpl(MetaStudioQuotaManager quotaManager,
+                                            MetaStudioClient metaStudioClient) {
+        this.quotaManager = quotaManager;
+        this.metaStudioClient = metaStudioClient;
+    }
+
     @PostConstruct
     public void init() {
         running = true;
-        rateLimiterExecutor.scheduleAtFixedRate(this::processNextRequest,
-                0, RATE_LIMIT_INTERVAL_MS, TimeUnit.MILLISECONDS);
-        logger.info("华为云自定义读法服务限流器启动，限流速率：10次/秒");
+        workerThread = new Thread(this::processLoop, "HuaweiCloudVocabulary-Worker");
+        workerThread.setDaemon(true);
+        workerThread.start();
+        logger.info("华为云自定义读法服务工作线程启动，调用速率由配额管理器控制");
     }
 
     @PreDestroy
     public void destroy() {
         running = false;
-        rateLimiterExecutor.shutdown();
-        logger.info("华为云自定义读法服务限流器停止");
+        if (workerThread != null) {
+            workerThread.interrupt();
+        }
+        logger.info("华为云自定义读法服务工作线程停止");
     }
 
     /**
-     * 限流处理：每100ms处理一条请求（10次/秒）
+     * 处理循环：队列为空时阻塞等待，有请求时申请配额后处理
      */
-    private void processNextRequest() {
-        if (!running) {
-            return;
-        }
-
-        VocabularyRequest request = requestQueue.poll();
-        if (request != null) {
+    private void processLoop() {
+        while (running) {
+            VocabularyRequest request;
+            try {
+                request = requestQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
             try {
+                quotaManager.acquire(request.type.operation);
                 processRequest(request);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                request.future.completeExceptionally(e);
+                return;
             } catch (Exception e) {
                 logger.error("处理华为云自定义读法请求失败", e);
                 request.future.completeExceptionally(e);
@@ -121,14 +134,18 @@ public class HuaweiCloudVocabularyServiceImpl implements HuaweiCloudVocabularySe
      * 处理单条请求
      */
     private void processRequest(VocabularyRequest request) {
+        request.attempts++;
         try {
-            MetaStudioClient client = createClient();
+            MetaStudioClient client = metaStudioClient;
 
             switch (request.type) {
                 case LIST:
                     List<VocabularyConfig> configs = doListVocabularyConfigs(client);
                     request.future.complete(configs);
                     break;
+                case LIST_RESPONSE:
+                    request.future.complete(doListVocabularyConfigsResponse(client));
+                    break;
                 case CREATE:
                     String vocabularyId = doCreateVocabularyConfig(client, request.pattern, request.ruleValue, request.ruleType);
                     request.future.complete(vocabularyId);
@@ -142,25 +159,35 @@ public class HuaweiCloudVocabularyServiceImpl implements HuaweiCloudVocabularySe
                     request.future.complete(null);
                     break;
             }
+            quotaManager.onSuccess(request.type.operation);
         } catch (Exception e) {
+            if (isThrottled(e)) {
+                quotaManager.onThrottled(request.type.operation);
+                if (request.attempts < MAX_THROTTLE_ATTEMPTS) {
+                    // 重新排队，等待降速后的配额再次处理
+                    logger.warn("华为云自定义读法请求被限流，第{}次尝试，重新排队，type: {}", request.attempts, request.type);
+                    requestQueue.offer(request);
+                    return;
+                }
+            }
             logger.error("处理华为云自定义读法请求异常，type: {}", request.type, e);
             request.future.completeExceptionally(e);
         }
     }
 
     /**
-     * 创建华为云客户端
+     * 判断异常是否由华为云限流（HTTP 429）引起
      */
-    private MetaStudioClient createClient() {
-        ICredential auth = new BasicCredentials()
-                .withProjectId(huaweiCloudProjectId)
-                .withAk(huaweiCloudAk)
-                .withSk(huaweiCloudSk);
-
-        return MetaStudioClient.newBuilder()
-                .withCredential(auth)
-                .withRegion(MetaStudioRegion.valueOf(huaweiCloudRegion))
-                .build();
+    private boolean isThrottled(Throwable e) {
+        Throwable current = e;
+        while (current != null) {
+            if (current instanceof ServiceResponseException
+                    && MetaStudioQuotaManager.isThrottled(((ServiceResponseException) current).getHttpStatusCode())) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
     }
 
     @Override
@@ -180,35 +207,14 @@ public class HuaweiCloudVocabularyServiceImpl implements HuaweiCloudVocabularySe
 
     @Override
     public ListTtscVocabularyConfigsResponse listVocabularyConfigsResponse() {
-        try {
-            // 创建华为云客户端
-            ICredential auth = new BasicCredentials()
-                    .withProjectId(huaweiCloudProjectId)
-                    .withAk(huaweiCloudAk)
-                    .withSk(huaweiCloudSk);
-            MetaStudioClient client = MetaStudioClient.newBuilder()
-                    .withCredential(auth)
-                    .withRegion(MetaStudioRegion.valueOf(huaweiCloudRegion))
-                    .build();
+        VocabularyRequest request = new VocabularyRequest(RequestType.LIST_RESPONSE);
+        requestQueue.offer(request);
 
-            // 构建请求
-            ListTtscVocabularyConfigsRequest request = new ListTtscVocabularyConfigsRequest();
-            ListTtscVocabularyConfigsResponse response = client.listTtscVocabularyConfigs(request);
-            logger.info("查询华为云自定义读法规则列表成功");
-            return response;
-        } catch (ConnectionException e) {
-            logger.error("查询华为云自定义读法规则列表连接异常", e);
-            throw new RuntimeException("查询华为云自定义读法规则列表连接异常: " + e.getMessage(), e);
-        } catch (RequestTimeoutException e) {
-            logger.error("查询华为云自定义读法规则列表请求超时", e);
-            throw new RuntimeException("查询华为云自定义读法规则列表请求超时: " + e.getMessage(), e);
-        } catch (ServiceResponseException e) {
-            logger.error("查询华为云自定义读法规则列表服务响应异常，HTTP状态码={}, 请求ID={}, 错误码={}, 错误信息={}", 
-                    e.getHttpStatusCode(), e.getRequestId(), e.getErrorCode(), e.getErrorMsg());
-            throw new RuntimeException("查询华为云自定义读法规则列表服务响应异常: " + e.getErrorMsg(), e);
+        try {
+            return (ListTtscVocabularyConfigsResponse) request.future.get(30, TimeUnit.SECONDS);
         } catch (Exception e) {
-            logger.error("查询华为云自定义读法规则列表异常", e);
-            throw new RuntimeException("查询华为云自定义读法规则列表异常: " + e.getMessage(), e);
+            logger.error("查询华为云自定义读法规则列表失败", e);
+            throw new RuntimeException("查询华为云自定义读法规则列表失败: " + e.getMessage(), e);
         }
     }
 
@@ -262,11 +268,14 @@ public class HuaweiCloudVocabularyServiceImpl implements HuaweiCloudVocabularySe
     }
 
     @Override
-    public void updateVocabularyConfigs(List<ReadingRule> rules) {
-        try {
-            // 1. 查询现有的规则
-            List<VocabularyConfig> existingConfigs = listVocabularyConfigs();
+    public List<VocabularyConfig> updateVocabularyConfigs(List<ReadingRule> rules) {
+        // 1. 查询现有的规则
+        return updateVocabularyConfigs(rules, listVocabularyConfigs());
+    }
 
+    @Override
+    public List<VocabularyConfig> updateVocabularyConfigs(List<ReadingRule> rules, List<VocabularyConfig> existingConfigs) {
+        try {
             // 2. 构建需要的规则Map（pattern -> ReadingRule），用于快速查找
             Map<String, ReadingRule> requiredRuleMap = rules.stream()
                     .collect(Collectors.toMap(
@@ -344,12 +353,27 @@ public class HuaweiCloudVocabularyServiceImpl implements HuaweiCloudVocabularySe
                 logger.info("无需删除的规则");
             }
 
+            // 记录更新后的云端规则：保留的规则 + 创建成功的规则
+            Set<String> deletedIds = new HashSet<>(vocabularyIdsToDelete);
+            List<VocabularyConfig> resultConfigs = new ArrayList<>();
+            for (VocabularyConfig cloudConfig : existingConfigs) {
+                if (!deletedIds.contains(cloudConfig.getVocabularyId())) {
+                    resultConfigs.add(cloudConfig);
+                }
+            }
+
             // 7. 创建需要创建的规则
             int createdCount = 0;
             for (ReadingRule rule : rulesToCreate) {
                 try {
                     String vocabularyId = createVocabularyConfig(rule.getPattern(), rule.getRuleValue(), rule.getRuleType());
                     createdCount++;
+                    VocabularyConfig createdConfig = new VocabularyConfig();
+                    createdConfig.setVocabularyId(vocabularyId);
+                    createdConfig.setPattern(rule.getPattern());
+                    createdConfig.setRuleValue(rule.getRuleValue());
+                    createdConfig.setRuleType(rule.getRuleType());
+                    resultConfigs.add(createdConfig);
                     logger.info("创建华为云自定义读法规则成功，vocabularyId: {}, pattern: {}, ruleValue: {}, ruleType: {}", 
                             vocabularyId, rule.getPattern(), rule.getRuleValue(), rule.getRuleType());
                 } catch (Exception e) {
@@ -361,6 +385,7 @@ public class HuaweiCloudVocabularyServiceImpl implements HuaweiCloudVocabularySe
             int preservedCount = existingConfigs.size() - vocabularyIdsToDelete.size();
             logger.info("批量更新华为云自定义读法规则完成，共处理 {} 条规则：删除 {} 条，创建 {} 条，保留 {} 条", 
                     rules.size(), vocabularyIdsToDelete.size(), createdCount, preservedCount);
+            return resultConfigs;
         } catch (Exception e) {
             logger.error("批量更新华为云自定义读法规则失败", e);
             throw new RuntimeException("批量更新华为云自定义读法规则失败: " + e.getMessage(), e);
@@ -418,6 +443,32 @@ public class HuaweiCloudVocabularyServiceImpl implements HuaweiCloudVocabularySe
         }
     }
 
+    /**
+     * 执行查询自定义读法规则列表，返回华为云原始响应
+     */
+    private ListTtscVocabularyConfigsResponse doListVocabularyConfigsResponse(MetaStudioClient client) {
+        try {
+            // 构建请求
+            ListTtscVocabularyConfigsRequest request = new ListTtscVocabularyConfigsRequest();
+            ListTtscVocabularyConfigsResponse response = client.listTtscVocabularyConfigs(request);
+            logger.info("查询华为云自定义读法规则列表成功");
+            return response;
+        } catch (ConnectionException e) {
+            logger.error("查询华为云自定义读法规则列表连接异常", e);
+            throw new RuntimeException("查询华为云自定义读法规则列表连接异常: " + e.getMessage(), e);
+        } catch (RequestTimeoutException e) {
+            logger.error("查询华为云自定义读法规则列表请求超时", e);
+            throw new RuntimeException("查询华为云自定义读法规则列表请求超时: " + e.getMessage(), e);
+        } catch (ServiceResponseException e) {
+            logger.error("查询华为云自定义读法规则列表服务响应异常，HTTP状态码={}, 请求ID={}, 错误码={}, 错误信息={}", 
+                    e.getHttpStatusCode(), e.getRequestId(), e.getErrorCode(), e.getErrorMsg());
+            throw new RuntimeException("查询华为云自定义读法规则列表服务响应异常: " + e.getErrorMsg(), e);
+        } catch (Exception e) {
+            logger.error("查询华为云自定义读法规则列表异常", e);
+            throw new RuntimeException("查询华为云自定义读法规则列表异常: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 执行创建自定义读法规则
      */
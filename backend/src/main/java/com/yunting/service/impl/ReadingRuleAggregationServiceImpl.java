@@ -55,44 +55,101 @@ public class ReadingRuleAggregationServiceImpl implements ReadingRuleAggregation
                 readingRuleApplicationMapper.selectByFromIdAndType(taskId, 1);
         logger.debug("查询任务级规则，taskId: {}, 记录数: {}", taskId, taskRecords.size());
 
-        // 3. 合并规则，有冲突的以断句规则为准
+        // 3. 查询规则表中的所有规则
+        List<ReadingRule> allRules = readingRuleMapper.selectList();
+        logger.debug("规则表中的总规则数: {}", allRules.size());
+
+        // 4. 合并规则并排除需要关闭的规则
+        List<ReadingRule> result = filterOpenRules(allRules, taskRecords, breakingSentenceRecords);
+        
+        logger.info("汇总断句需要的阅读规则完成，breakingSentenceId: {}, taskId: {}, 返回规则数: {}", 
+                breakingSentenceId, taskId, result.size());
+        
+        return result;
+    }
+
+    @Override
+    public Map<Long, List<ReadingRule>> aggregateReadingRules(List<BreakingSentence> sentences) {
+        Map<Long, List<ReadingRule>> result = new HashMap<>();
+        if (sentences == null || sentences.isEmpty()) {
+            return result;
+        }
+
+        List<Long> breakingSentenceIds = sentences.stream()
+                .map(BreakingSentence::getBreakingSentenceId)
+                .distinct()
+                .collect(Collectors.toList());
+        List<Long> taskIds = sentences.stream()
+                .map(BreakingSentence::getTaskId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        // 1. 批量查询断句级规则（type=2）和任务级规则（type=1）
+        Map<Long, List<Map<String, Object>>> breakingSentenceRecords =
+                groupByFromId(readingRuleApplicationMapper.selectByFromIdsAndType(breakingSentenceIds, 2));
+        Map<Long, List<Map<String, Object>>> taskRecords = taskIds.isEmpty()
+                ? Collections.emptyMap()
+                : groupByFromId(readingRuleApplicationMapper.selectByFromIdsAndType(taskIds, 1));
+
+        // 2. 规则表只查询一次
+        List<ReadingRule> allRules = readingRuleMapper.selectList();
+
+        // 3. 逐个断句合并规则
+        for (BreakingSentence sentence : sentences) {
+            Long breakingSentenceId = sentence.getBreakingSentenceId();
+            result.put(breakingSentenceId, filterOpenRules(allRules,
+                    taskRecords.getOrDefault(sentence.getTaskId(), Collections.emptyList()),
+                    breakingSentenceRecords.getOrDefault(breakingSentenceId, Collections.emptyList())));
+        }
+
+        logger.info("批量汇总断句需要的阅读规则完成，断句数: {}, 规则表总规则数: {}", sentences.size(), allRules.size());
+        return result;
+    }
+
+    /**
+     * 合并任务级和断句级应用记录，返回规则表中未被关闭的规则
+     * 有冲突的以断句规则为准
+     */
+    private List<ReadingRule> filterOpenRules(List<ReadingRule> allRules,
+                                              List<Map<String, Object>> taskRecords,
+                                              List<Map<String, Object>> breakingSentenceRecords) {
         // 使用rule_id作为key，断句规则会覆盖任务规则
         Map<Long, Boolean> mergedRuleMap = new HashMap<>();
         
-        // 3.1 先添加任务级规则
+        // 先添加任务级规则
         for (Map<String, Object> record : taskRecords) {
             Long ruleId = ((Number) record.get("rule_id")).longValue();
             Boolean isOpen = convertToBoolean(record.get("is_open"));
             mergedRuleMap.put(ruleId, isOpen);
         }
         
-        // 3.2 再添加断句级规则（会覆盖任务级规则）
+        // 再添加断句级规则（会覆盖任务级规则）
         for (Map<String, Object> record : breakingSentenceRecords) {
             Long ruleId = ((Number) record.get("rule_id")).longValue();
             Boolean isOpen = convertToBoolean(record.get("is_open"));
             mergedRuleMap.put(ruleId, isOpen);
         }
 
-        // 4. 提取出需要关闭的规则
+        // 提取出需要关闭的规则
         Set<Long> closedRuleIds = mergedRuleMap.entrySet().stream()
                 .filter(entry -> !entry.getValue()) // is_open = false
                 .map(Map.Entry::getKey)
                 .collect(Collectors.toSet());
         logger.debug("需要关闭的规则ID: {}", closedRuleIds);
 
-        // 5. 查询规则表中的所有规则
-        List<ReadingRule> allRules = readingRuleMapper.selectList();
-        logger.debug("规则表中的总规则数: {}", allRules.size());
-
-        // 6. 返回规则表中剩余的规则（排除需要关闭的规则）
-        List<ReadingRule> result = allRules.stream()
+        // 返回规则表中剩余的规则（排除需要关闭的规则）
+        return allRules.stream()
                 .filter(rule -> !closedRuleIds.contains(rule.getRuleId()))
                 .collect(Collectors.toList());
-        
-        logger.info("汇总断句需要的阅读规则完成，breakingSentenceId: {}, taskId: {}, 返回规则数: {}", 
-                breakingSentenceId, taskId, result.size());
-        
-        return result;
+    }
+
+    /**
+     * 按from_id对应用记录分组
+     */
+    private Map<Long, List<Map<String, Object>>> groupByFromId(List<Map<String, Object>> records) {
+        return records.stream()
+                .collect(Collectors.groupingBy(record -> ((Number) record.get("from_id")).longValue()));
     }
 
     /**
@@ -10,14 +10,21 @@ import com.yunting.mapper.BreakingSentenceMapper;
 import com.yunting.mapper.SynthesisSettingMapper;
 import com.yunting.mapper.TaskMapper;
 import com.yunting.model.BreakingSentence;
+import com.yunting.model.ReadingRule;
 import com.yunting.model.SynthesisSetting;
 import com.yunting.model.Task;
+import com.yunting.model.TtsSynthesisCache;
+import com.yunting.service.ReadingRuleAggregationService;
 import com.yunting.service.SynthesisService;
 import com.yunting.service.SynthesisConfigService;
+import com.yunting.service.SynthesisStatusCache;
 import com.yunting.service.SynthesisStatusService;
 import com.yunting.service.TtsCallbackHandlerService;
+import com.yunting.service.TtsSynthesisCacheService;
+import com.yunting.service.TaskStatusUpdateService;
 import com.yunting.service.RocketMQTtsSynthesisService;
 import com.yunting.util.ValidationUtil;
+import com.yunting.constant.SynthesisPriority;
 import com.yunting.constant.SynthesisStatus;
 import com.yunting.constant.TaskStatus;
 import org.springframework.stereotype.Service;
@@ -25,8 +32,12 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,6 +46,9 @@ public class SynthesisServiceImpl implements SynthesisService {
 
     private static final Logger logger = LoggerFactory.getLogger(SynthesisServiceImpl.class);
 
+    // 批量更新断句状态时每条 UPDATE 语句包含的最大行数
+    private static final int BATCH_UPDATE_SIZE = 500;
+
     private final BreakingSentenceMapper breakingSentenceMapper;
     private final TaskMapper taskMapper;
     private final SynthesisSettingMapper synthesisSettingMapper;
@@ -42,6 +56,10 @@ public class SynthesisServiceImpl implements SynthesisService {
     private final SynthesisConfigService synthesisConfigService;
     private final SynthesisStatusService synthesisStatusService;
     private final TtsCallbackHandlerService ttsCallbackHandlerService;
+    private final TtsSynthesisCacheService ttsSynthesisCacheService;
+    private final TaskStatusUpdateService taskStatusUpdateService;
+    private final ReadingRuleAggregationService readingRuleAggregationService;
+    private final SynthesisStatusCache synthesisStatusCache;
 
     public SynthesisServiceImpl(BreakingSentenceMapper breakingSentenceMapper,
                                 TaskMapper taskMapper,
@@ -49,7 +67,11 @@ public class SynthesisServiceImpl implements SynthesisService {
                                 RocketMQTtsSynthesisService rocketMQTtsSynthesisService,
                                 SynthesisConfigService synthesisConfigService,
                                 SynthesisStatusService synthesisStatusService,
-                                TtsCallbackHandlerService ttsCallbackHandlerService) {
+                                TtsCallbackHandlerService ttsCallbackHandlerService,
+                                TtsSynthesisCacheService ttsSynthesisCacheService,
+                                TaskStatusUpdateService taskStatusUpdateService,
+                                ReadingRuleAggregationService readingRuleAggregationService,
+                                SynthesisStatusCache synthesisStatusCache) {
         this.breakingSentenceMapper = breakingSentenceMapper;
         this.taskMapper = taskMapper;
         this.synthesisSettingMapper = synthesisSettingMapper;
@@ -57,6 +79,10 @@ public class SynthesisServiceImpl implements SynthesisService {
         this.synthesisConfigService = synthesisConfigService;
         this.synthesisStatusService = synthesisStatusService;
         this.ttsCallbackHandlerService = ttsCallbackHandlerService;
+        this.ttsSynthesisCacheService = ttsSynthesisCacheService;
+        this.taskStatusUpdateService = taskStatusUpdateService;
+        this.readingRuleAggregationService = readingRuleAggregationService;
+        this.synthesisStatusCache = synthesisStatusCache;
     }
 
     @Override
@@ -104,27 +130,42 @@ public class SynthesisServiceImpl implements SynthesisService {
             // 5. 构建TTS合成请求消息
             TtsSynthesisRequest synthesisRequest = new TtsSynthesisRequest();
             synthesisRequest.setBreakingSentenceId(breakingSentenceId);
+            synthesisRequest.setTaskId(sentence.getTaskId());
             synthesisRequest.setVoiceId(voiceId);
             synthesisRequest.setSpeechRate(speechRate);
             synthesisRequest.setVolume(volume);
             synthesisRequest.setPitch(pitch);
             synthesisRequest.setResetStatus(false);
             synthesisRequest.setSsml(sentence.getSsml());  // 使用 SSML 字段
+            synthesisRequest.setSequence(sentence.getSequence());
+            synthesisRequest.setPriority(SynthesisPriority.INTERACTIVE);  // 单句重新合成走交互通道
             
-            // 6. 发送消息到RocketMQ，而不是直接调用华为云API
+            // 6. 命中合成结果缓存时直接复用已有音频，不再调用华为云
+            String cacheKey = ttsSynthesisCacheService.buildCacheKey(synthesisRequest);
+            breakingSentenceMapper.updateSynthesisCacheKey(breakingSentenceId, cacheKey);
+            // 清空上一次合成的jobId，避免旧任务迟到的回调或对账结果覆盖本次合成
+            breakingSentenceMapper.updateJobId(breakingSentenceId, null);
+            if (applyCachedResult(breakingSentenceId, cacheKey)) {
+                taskStatusUpdateService.updateTaskStatusIfNeeded(sentence.getTaskId());
+                return SynthesisStatus.Message.COMPLETED;
+            }
+            
+            // 7. 发送消息到RocketMQ，而不是直接调用华为云API
             //    实际的API调用会在 TtsSynthesisConsumer 中限流处理（5次/秒）
             boolean success = rocketMQTtsSynthesisService.sendSynthesisRequest(synthesisRequest);
             if (!success) {
                 // 发送失败，更新状态为失败并返回"合成失败"
                 logger.error("TTS合成请求发送失败，breakingSentenceId: {}", breakingSentenceId);
                 breakingSentenceMapper.updateSynthesisInfo(breakingSentenceId, SynthesisStatus.Status.FAILED, null, null);
+                synthesisStatusCache.invalidateTask(sentence.getTaskId());
                 return SynthesisStatus.Message.FAILED;
             }
             
-            // 7. 更新状态为合成中（实际创建任务会在 Consumer 中完成）
+            // 8. 更新状态为合成中（实际创建任务会在 Consumer 中完成）
             breakingSentenceMapper.updateSynthesisInfo(breakingSentenceId, SynthesisStatus.Status.PROCESSING, null, null);
+            synthesisStatusCache.invalidateTask(sentence.getTaskId());
             
-            // 8. 返回合成状态文本（由于消息队列的存在，只会返回"合成中"或"合成失败"）
+            // 9. 返回合成状态文本（未命中缓存时只会返回"合成中"或"合成失败"）
             return SynthesisStatus.Message.PROCESSING;
         } catch (Exception e) {
             // 任何异常都返回"合成失败"
@@ -139,7 +180,6 @@ public class SynthesisServiceImpl implements SynthesisService {
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public String synthesizeOriginalSentence(Long originalSentenceId) {
         try {
             // 1. 参数验证：确保拆句ID不为空
@@ -152,29 +192,8 @@ public class SynthesisServiceImpl implements SynthesisService {
                 return "合成失败：拆句下没有断句";
             }
             
-            // 3. 对每个断句调用合成逻辑，收集失败信息
-            List<String> failureMessages = new ArrayList<>();
-            for (BreakingSentence sentence : sentences) {
-                try {
-                    String result = synthesize(sentence.getBreakingSentenceId());
-                    if (SynthesisStatus.Message.FAILED.equals(result)) {
-                        // 查询失败原因
-                        BreakingSentence failedSentence = breakingSentenceMapper.selectById(sentence.getBreakingSentenceId());
-                        String errorMsg = "断句ID " + sentence.getBreakingSentenceId();
-                        if (failedSentence == null) {
-                            errorMsg += "：断句不存在";
-                        } else if (!StringUtils.hasText(failedSentence.getSsml())) {
-                            errorMsg += "：SSML为空";
-                        } else {
-                            errorMsg += "：TTS合成请求发送失败";
-                        }
-                        failureMessages.add(errorMsg);
-                    }
-                } catch (Exception e) {
-                    logger.error("合成断句失败，breakingSentenceId: {}", sentence.getBreakingSentenceId(), e);
-                    failureMessages.add("断句ID " + sentence.getBreakingSentenceId() + "：" + e.getMessage());
-                }
-            }
+            // 3. 批量合成所有断句，收集失败信息（单个拆句由编辑者触发，走交互通道）
+            List<String> failureMessages = synthesizeBatch(sentences, SynthesisPriority.INTERACTIVE);
             
             // 4. 如果有失败，返回失败信息；否则返回"合成中"
             if (!failureMessages.isEmpty()) {
@@ -207,16 +226,10 @@ public class SynthesisServiceImpl implements SynthesisService {
                 return SynthesisStatus.Message.FAILED + "：任务下没有断句";
             }
             
-            // 4. 先在一个事务中验证所有断句并更新状态为PROCESSING
-            PrepareSynthesisResult prepareResult = prepareSynthesisForTask(sentences);
-            if (!prepareResult.getFailureMessages().isEmpty()) {
-                return SynthesisStatus.Message.FAILED + "：" + String.join("；", prepareResult.getFailureMessages());
-            }
-            
-            // 5. 事务已提交，状态已更新为PROCESSING，现在再发送消息（避免consumer读到未提交的状态）
-            List<String> failureMessages = sendSynthesisRequests(prepareResult.getSynthesisRequests());
+            // 4. 批量合成所有断句，收集失败信息
+            List<String> failureMessages = synthesizeBatch(sentences, SynthesisPriority.BULK);
             
-            // 6. 如果有失败，返回失败信息；否则返回"合成中"
+            // 5. 如果有失败，返回失败信息；否则返回"合成中"
             if (!failureMessages.isEmpty()) {
                 return SynthesisStatus.Message.FAILED + "：" + String.join("；", failureMessages);
             }
@@ -228,98 +241,187 @@ public class SynthesisServiceImpl implements SynthesisService {
     }
     
     /**
-     * 准备合成：验证断句并更新状态为PROCESSING（在事务中执行）
+     * 批量合成断句
+     * 先批量校验并一次性更新状态，状态落库后再把整批请求交给生产者（避免consumer读到旧状态）
+     * 
+     * @param sentences 断句列表
+     * @param priority 调度优先级，见 SynthesisPriority
+     * @return 失败信息列表
      */
-    @Transactional(rollbackFor = Exception.class)
-    private PrepareSynthesisResult prepareSynthesisForTask(List<BreakingSentence> sentences) {
-        List<TtsSynthesisRequest> synthesisRequests = new ArrayList<>();
-        List<String> failureMessages = new ArrayList<>();
+    private List<String> synthesizeBatch(List<BreakingSentence> sentences, int priority) {
+        // 1. 批量校验断句、查询缓存，并一次性更新状态
+        PrepareSynthesisResult prepareResult = prepareSynthesisBatch(sentences, priority);
+        List<String> failureMessages = new ArrayList<>(prepareResult.getFailureMessages());
         
-        for (BreakingSentence sentence : sentences) {
+        // 2. 整批发送合成请求，发送失败的断句批量标记为失败
+        List<TtsSynthesisRequest> requests = prepareResult.getSynthesisRequests();
+        if (!requests.isEmpty()) {
+            List<Long> failedIds;
             try {
-                Long breakingSentenceId = sentence.getBreakingSentenceId();
-                
-                // 验证断句是否存在
-                BreakingSentence breakingSentence = breakingSentenceMapper.selectById(breakingSentenceId);
-                if (breakingSentence == null) {
-                    failureMessages.add("断句ID " + breakingSentenceId + "：断句不存在");
-                    continue;
-                }
-                
-                // 验证 SSML 是否存在
-                if (!StringUtils.hasText(breakingSentence.getSsml())) {
-                    failureMessages.add("断句ID " + breakingSentenceId + "：SSML为空");
-                    breakingSentenceMapper.updateSynthesisInfo(breakingSentenceId, SynthesisStatus.Status.FAILED, null, null);
-                    continue;
-                }
-                
-                // 读取合成参数
-                SynthesisSetting setting = synthesisSettingMapper.selectByBreakingSentenceId(breakingSentenceId);
-                if (setting == null) {
-                    failureMessages.add("断句ID " + breakingSentenceId + "：合成参数配置不存在");
-                    breakingSentenceMapper.updateSynthesisInfo(breakingSentenceId, SynthesisStatus.Status.FAILED, null, null);
-                    continue;
-                }
-                
-                String voiceId = setting.getVoiceId();
-                if (!StringUtils.hasText(voiceId)) {
-                    failureMessages.add("断句ID " + breakingSentenceId + "：音色ID为空");
-                    breakingSentenceMapper.updateSynthesisInfo(breakingSentenceId, SynthesisStatus.Status.FAILED, null, null);
-                    continue;
-                }
-                
-                // 构建TTS合成请求消息（暂不发送）
-                TtsSynthesisRequest synthesisRequest = new TtsSynthesisRequest();
-                synthesisRequest.setBreakingSentenceId(breakingSentenceId);
-                synthesisRequest.setVoiceId(voiceId);
-                synthesisRequest.setSpeechRate(setting.getSpeechRate());
-                synthesisRequest.setVolume(setting.getVolume());
-                synthesisRequest.setPitch(setting.getPitch());
-                synthesisRequest.setResetStatus(false);
-                synthesisRequest.setSsml(breakingSentence.getSsml());
-                synthesisRequests.add(synthesisRequest);
-                
-                // 更新状态为PROCESSING（事务提交后，consumer才能读到正确的状态）
-                breakingSentenceMapper.updateSynthesisInfo(breakingSentenceId, SynthesisStatus.Status.PROCESSING, null, null);
+                failedIds = rocketMQTtsSynthesisService.sendSynthesisRequests(requests);
             } catch (Exception e) {
-                logger.error("验证断句失败，breakingSentenceId: {}", sentence.getBreakingSentenceId(), e);
-                failureMessages.add("断句ID " + sentence.getBreakingSentenceId() + "：" + e.getMessage());
+                logger.error("批量发送TTS合成请求失败，数量: {}", requests.size(), e);
+                failedIds = requests.stream()
+                        .map(TtsSynthesisRequest::getBreakingSentenceId)
+                        .collect(Collectors.toList());
+            }
+            if (!failedIds.isEmpty()) {
+                breakingSentenceMapper.updateSynthesisStatusByIds(failedIds, SynthesisStatus.Status.FAILED);
+                for (Long failedId : failedIds) {
+                    failureMessages.add("断句ID " + failedId + "：TTS合成请求发送失败");
+                }
             }
         }
         
-        return new PrepareSynthesisResult(synthesisRequests, failureMessages);
+        // 3. 命中缓存或失败的断句已是最终状态，需要刷新任务状态
+        if (prepareResult.getCachedCount() > 0 || !failureMessages.isEmpty()) {
+            logger.info("批量合成存在命中缓存或失败的断句，刷新任务状态，命中: {}, 失败: {}", 
+                    prepareResult.getCachedCount(), failureMessages.size());
+            sentences.stream()
+                    .map(BreakingSentence::getTaskId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .forEach(taskStatusUpdateService::updateTaskStatusIfNeeded);
+        }
+        
+        return failureMessages;
     }
     
     /**
-     * 发送合成请求消息（在事务外执行）
+     * 批量准备合成：批量读取合成参数和阅读规则，校验断句、查询合成结果缓存，
+     * 最后用批量UPDATE一次性写入所有断句的状态和缓存键
      */
-    private List<String> sendSynthesisRequests(List<TtsSynthesisRequest> requests) {
+    private PrepareSynthesisResult prepareSynthesisBatch(List<BreakingSentence> sentences, int priority) {
+        List<TtsSynthesisRequest> synthesisRequests = new ArrayList<>();
         List<String> failureMessages = new ArrayList<>();
+        List<BreakingSentence> statusUpdates = new ArrayList<>();
         
-        for (TtsSynthesisRequest request : requests) {
-            try {
-                boolean success = rocketMQTtsSynthesisService.sendSynthesisRequest(request);
-                if (!success) {
-                    failureMessages.add("断句ID " + request.getBreakingSentenceId() + "：TTS合成请求发送失败");
-                    // 发送失败，更新状态为失败（在单独的事务中）
-                    updateSynthesisStatusToFailed(request.getBreakingSentenceId());
-                }
-            } catch (Exception e) {
-                logger.error("发送TTS合成请求失败，breakingSentenceId: {}", request.getBreakingSentenceId(), e);
-                failureMessages.add("断句ID " + request.getBreakingSentenceId() + "：" + e.getMessage());
-                updateSynthesisStatusToFailed(request.getBreakingSentenceId());
+        // 1. 批量读取合成参数
+        List<Long> breakingSentenceIds = sentences.stream()
+                .map(BreakingSentence::getBreakingSentenceId)
+                .collect(Collectors.toList());
+        Map<Long, SynthesisSetting> settingMap = synthesisSettingMapper.selectByBreakingSentenceIds(breakingSentenceIds)
+                .stream()
+                .collect(Collectors.toMap(SynthesisSetting::getBreakingSentenceId, setting -> setting, (v1, v2) -> v1));
+        
+        // 2. 校验断句并构建合成请求
+        List<BreakingSentence> validSentences = new ArrayList<>();
+        List<TtsSynthesisRequest> candidates = new ArrayList<>();
+        for (BreakingSentence sentence : sentences) {
+            Long breakingSentenceId = sentence.getBreakingSentenceId();
+            
+            // 验证 SSML 是否存在
+            if (!StringUtils.hasText(sentence.getSsml())) {
+                failureMessages.add("断句ID " + breakingSentenceId + "：SSML为空");
+                statusUpdates.add(buildStatusUpdate(breakingSentenceId, SynthesisStatus.Status.FAILED, null, null, null, null));
+                continue;
             }
+            
+            // 读取合成参数
+            SynthesisSetting setting = settingMap.get(breakingSentenceId);
+            if (setting == null) {
+                failureMessages.add("断句ID " + breakingSentenceId + "：合成参数配置不存在");
+                statusUpdates.add(buildStatusUpdate(breakingSentenceId, SynthesisStatus.Status.FAILED, null, null, null, null));
+                continue;
+            }
+            
+            String voiceId = setting.getVoiceId();
+            if (!StringUtils.hasText(voiceId)) {
+                failureMessages.add("断句ID " + breakingSentenceId + "：音色ID为空");
+                statusUpdates.add(buildStatusUpdate(breakingSentenceId, SynthesisStatus.Status.FAILED, null, null, null, null));
+                continue;
+            }
+            
+            // 构建TTS合成请求消息（暂不发送）
+            TtsSynthesisRequest synthesisRequest = new TtsSynthesisRequest();
+            synthesisRequest.setBreakingSentenceId(breakingSentenceId);
+            synthesisRequest.setTaskId(sentence.getTaskId());
+            synthesisRequest.setVoiceId(voiceId);
+            synthesisRequest.setSpeechRate(setting.getSpeechRate());
+            synthesisRequest.setVolume(setting.getVolume());
+            synthesisRequest.setPitch(setting.getPitch());
+            synthesisRequest.setResetStatus(false);
+            synthesisRequest.setSsml(sentence.getSsml());
+            synthesisRequest.setSequence(sentence.getSequence());
+            synthesisRequest.setPriority(priority);
+            validSentences.add(sentence);
+            candidates.add(synthesisRequest);
         }
         
-        return failureMessages;
+        // 3. 批量计算缓存键并查询合成结果缓存
+        Map<Long, String> cacheKeyMap = new HashMap<>();
+        if (ttsSynthesisCacheService.isEnabled() && !candidates.isEmpty()) {
+            Map<Long, List<ReadingRule>> rulesMap = readingRuleAggregationService.aggregateReadingRules(validSentences);
+            for (TtsSynthesisRequest request : candidates) {
+                Long breakingSentenceId = request.getBreakingSentenceId();
+                cacheKeyMap.put(breakingSentenceId, ttsSynthesisCacheService.buildCacheKey(request,
+                        rulesMap.getOrDefault(breakingSentenceId, Collections.emptyList())));
+            }
+        }
+        Map<String, TtsSynthesisCache> cachedResults = ttsSynthesisCacheService.lookupAll(cacheKeyMap.values());
+        
+        // 4. 命中缓存的断句直接完成，其余断句标记为合成中
+        int cachedCount = 0;
+        for (TtsSynthesisRequest request : candidates) {
+            Long breakingSentenceId = request.getBreakingSentenceId();
+            String cacheKey = cacheKeyMap.get(breakingSentenceId);
+            TtsSynthesisCache cached = cacheKey != null ? cachedResults.get(cacheKey) : null;
+            if (cached != null) {
+                statusUpdates.add(buildStatusUpdate(breakingSentenceId, SynthesisStatus.Status.COMPLETED,
+                        cached.getAudioUrl(), cached.getAudioDuration(), cached.getAudioFormat(), cacheKey));
+                cachedCount++;
+                continue;
+            }
+            statusUpdates.add(buildStatusUpdate(breakingSentenceId, SynthesisStatus.Status.PROCESSING, null, null, null, cacheKey));
+            synthesisRequests.add(request);
+        }
+        
+        // 5. 批量更新状态（事务提交后，consumer才能读到正确的状态）
+        for (int from = 0; from < statusUpdates.size(); from += BATCH_UPDATE_SIZE) {
+            int to = Math.min(from + BATCH_UPDATE_SIZE, statusUpdates.size());
+            breakingSentenceMapper.batchUpdateSynthesisInfo(statusUpdates.subList(from, to));
+        }
+        sentences.stream()
+                .map(BreakingSentence::getTaskId)
+                .distinct()
+                .forEach(synthesisStatusCache::invalidateTask);
+        logger.info("批量准备合成完成，断句数: {}, 待合成: {}, 命中缓存: {}, 校验失败: {}", 
+                sentences.size(), synthesisRequests.size(), cachedCount, failureMessages.size());
+        
+        return new PrepareSynthesisResult(synthesisRequests, failureMessages, cachedCount);
     }
     
     /**
-     * 更新断句状态为失败（在单独的事务中）
+     * 构建批量更新用的断句状态
      */
-    @Transactional(rollbackFor = Exception.class)
-    private void updateSynthesisStatusToFailed(Long breakingSentenceId) {
-        breakingSentenceMapper.updateSynthesisInfo(breakingSentenceId, SynthesisStatus.Status.FAILED, null, null);
+    private BreakingSentence buildStatusUpdate(Long breakingSentenceId, int status, String audioUrl,
+                                               Integer audioDuration, String audioFormat,
+                                               String synthesisCacheKey) {
+        BreakingSentence update = new BreakingSentence();
+        update.setBreakingSentenceId(breakingSentenceId);
+        update.setSynthesisStatus(status);
+        update.setAudioUrl(audioUrl);
+        update.setAudioDuration(audioDuration);
+        update.setAudioFormat(audioFormat);
+        update.setSynthesisCacheKey(synthesisCacheKey);
+        return update;
+    }
+    
+    /**
+     * 查询合成结果缓存，命中时直接将断句标记为已合成
+     * 
+     * @return 是否命中缓存
+     */
+    private boolean applyCachedResult(Long breakingSentenceId, String cacheKey) {
+        TtsSynthesisCache cached = ttsSynthesisCacheService.lookup(cacheKey);
+        if (cached == null) {
+            return false;
+        }
+        breakingSentenceMapper.updateSynthesisResult(breakingSentenceId, SynthesisStatus.Status.COMPLETED,
+                cached.getAudioUrl(), cached.getAudioDuration(), cached.getAudioFormat());
+        logger.info("命中TTS合成缓存，跳过合成，breakingSentenceId: {}, audioUrl: {}", 
+                breakingSentenceId, cached.getAudioUrl());
+        return true;
     }
     
     /**
@@ -328,10 +430,13 @@ public class SynthesisServiceImpl implements SynthesisService {
     private static class PrepareSynthesisResult {
         private final List<TtsSynthesisRequest> synthesisRequests;
         private final List<String> failureMessages;
+        private final int cachedCount;
         
-        public PrepareSynthesisResult(List<TtsSynthesisRequest> synthesisRequests, List<String> failureMessages) {
+        public PrepareSynthesisResult(List<TtsSynthesisRequest> synthesisRequests, List<String> failureMessages,
+                                      int cachedCount) {
             this.synthesisRequests = synthesisRequests;
             this.failureMessages = failureMessages;
+            this.cachedCount = cachedCount;
         }
         
         public List<TtsSynthesisRequest> getSynthesisRequests() {
@@ -341,6 +446,10 @@ public class SynthesisServiceImpl implements SynthesisService {
         public List<String> getFailureMessages() {
             return failureMessages;
         }
+        
+        public int getCachedCount() {
+            return cachedCount;
+        }
     }
 
     @Override
@@ -406,6 +515,7 @@ public class SynthesisServiceImpl implements SynthesisService {
         
         // 5. 将状态重置为PENDING，清空audioUrl和audioDuration
         breakingSentenceMapper.updateSynthesisInfo(breakingSentenceId, SynthesisStatus.Status.PENDING, null, null);
+        synthesisStatusCache.invalidateTask(sentence.getTaskId());
         
         if (StringUtils.hasText(originalJobId)) {
             logger.info("已取消断句合成任务，已清空jobId，breakingSentenceId: {}, 原jobId: {}", 
@@ -6,6 +6,8 @@ import com.yunting.dto.synthesis.SynthesisResultDTO;
 import com.yunting.dto.synthesis.TaskSynthesisStatusDTO;
 import com.yunting.mapper.BreakingSentenceMapper;
 import com.yunting.model.BreakingSentence;
+import com.yunting.model.BreakingSentenceStatus;
+import com.yunting.service.SynthesisStatusCache;
 import com.yunting.service.SynthesisStatusService;
 import com.yunting.util.SynthesisStatusUtil;
 import com.yunting.util.ValidationUtil;
@@ -27,9 +29,12 @@ public class SynthesisStatusServiceImpl implements SynthesisStatusService {
     private static final Logger logger = LoggerFactory.getLogger(SynthesisStatusServiceImpl.class);
 
     private final BreakingSentenceMapper breakingSentenceMapper;
+    private final SynthesisStatusCache synthesisStatusCache;
 
-    public SynthesisStatusServiceImpl(BreakingSentenceMapper breakingSentenceMapper) {
+    public SynthesisStatusServiceImpl(BreakingSentenceMapper breakingSentenceMapper,
+                                      SynthesisStatusCache synthesisStatusCache) {
         this.breakingSentenceMapper = breakingSentenceMapper;
+        this.synthesisStatusCache = synthesisStatusCache;
     }
 
     @Override
@@ -59,8 +64,8 @@ public class SynthesisStatusServiceImpl implements SynthesisStatusService {
         // 参数验证
         ValidationUtil.notNull(originalSentenceId, "originalSentenceId不能为空");
         
-        // 查询该拆句下的所有断句
-        List<BreakingSentence> sentences = breakingSentenceMapper.selectByOriginalSentenceId(originalSentenceId);
+        // 查询该拆句下所有断句的状态（只查状态相关的列，短时间内的重复轮询走缓存）
+        List<BreakingSentenceStatus> sentences = synthesisStatusCache.getByOriginalSentenceId(originalSentenceId);
         
         // 构建返回结果
         OriginalSentenceSynthesisStatusDTO result = new OriginalSentenceSynthesisStatusDTO();
@@ -81,7 +86,9 @@ public class SynthesisStatusServiceImpl implements SynthesisStatusService {
         int progress = total > 0 ? (int) Math.round((double) completed / total * 100) : 0;
         
         // 确定整体状态（使用统一工具类方法）
-        Integer status = SynthesisStatusUtil.aggregateSynthesisStatus(sentences);
+        Integer status = SynthesisStatusUtil.aggregateStatusValues(sentences.stream()
+                .map(BreakingSentenceStatus::getSynthesisStatus)
+                .collect(Collectors.toList()));
         
         result.setStatus(status);
         result.setProgress(progress);
@@ -117,8 +124,8 @@ public class SynthesisStatusServiceImpl implements SynthesisStatusService {
         // 参数验证
         ValidationUtil.notNull(taskId, "taskId不能为空");
         
-        // 查询该任务下的所有断句
-        List<BreakingSentence> sentences = breakingSentenceMapper.selectByTaskId(taskId);
+        // 查询该任务下所有断句的状态（只查状态相关的列，短时间内的重复轮询走缓存）
+        List<BreakingSentenceStatus> sentences = synthesisStatusCache.getByTaskId(taskId);
         
         // 构建返回结果
         TaskSynthesisStatusDTO result = new TaskSynthesisStatusDTO();
@@ -139,7 +146,9 @@ public class SynthesisStatusServiceImpl implements SynthesisStatusService {
         int progress = total > 0 ? (int) Math.round((double) completed / total * 100) : 0;
         
         // 确定整体状态（使用统一工具类方法）
-        Integer status = SynthesisStatusUtil.aggregateSynthesisStatus(sentences);
+        Integer status = SynthesisStatusUtil.aggregateStatusValues(sentences.stream()
+                .map(BreakingSentenceStatus::getSynthesisStatus)
+                .collect(Collectors.toList()));
         
         result.setStatus(status);
         result.setProgress(progress);
@@ -1,59 +1,64 @@
 package com.yunting.service.impl;
 
-import com.yunting.constant.SynthesisStatus;
 import com.yunting.constant.TaskStatus;
-import com.yunting.mapper.BreakingSentenceMapper;
 import com.yunting.mapper.TaskMapper;
-import com.yunting.model.BreakingSentence;
+import com.yunting.mapper.TaskSynthesisCounterMapper;
+import com.yunting.model.TaskSynthesisCounter;
+import com.yunting.service.SynthesisStatusCache;
 import com.yunting.service.TaskStatusUpdateService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Objects;
-
 /**
  * 任务状态更新服务实现
+ * 各状态的断句数由 breaking_sentences 的触发器在每次状态变化时原子增减（task_synthesis_counters），
+ * 这里只读取一行计数，不再加载任务下的全部断句
  */
 @Service
 public class TaskStatusUpdateServiceImpl implements TaskStatusUpdateService {
 
     private static final Logger logger = LoggerFactory.getLogger(TaskStatusUpdateServiceImpl.class);
 
-    private final BreakingSentenceMapper breakingSentenceMapper;
+    private final TaskSynthesisCounterMapper taskSynthesisCounterMapper;
     private final TaskMapper taskMapper;
+    private final SynthesisStatusCache synthesisStatusCache;
 
-    public TaskStatusUpdateServiceImpl(BreakingSentenceMapper breakingSentenceMapper,
-                                       TaskMapper taskMapper) {
-        this.breakingSentenceMapper = breakingSentenceMapper;
+    public TaskStatusUpdateServiceImpl(TaskSynthesisCounterMapper taskSynthesisCounterMapper,
+                                       TaskMapper taskMapper,
+                                       SynthesisStatusCache synthesisStatusCache) {
+        this.taskSynthesisCounterMapper = taskSynthesisCounterMapper;
         this.taskMapper = taskMapper;
+        this.synthesisStatusCache = synthesisStatusCache;
     }
 
     @Override
     public void updateTaskStatusIfNeeded(Long taskId) {
+        // 断句状态已变化，失效状态轮询缓存（在事务中调用时于提交后失效）
+        synthesisStatusCache.invalidateTask(taskId);
         try {
-            // 1. 查询该 task 下所有 breaking_sentence
-            List<BreakingSentence> sentences = breakingSentenceMapper.selectByTaskId(taskId);
-            if (sentences.isEmpty()) {
+            // 1. 读取该 task 的合成状态计数
+            TaskSynthesisCounter counter = taskSynthesisCounterMapper.selectByTaskId(taskId);
+            if (counter == null) {
+                // 计数行缺失（如触发器创建前写入的断句），按断句表重新统计一次
+                taskSynthesisCounterMapper.rebuild(taskId);
+                counter = taskSynthesisCounterMapper.selectByTaskId(taskId);
+            }
+            if (counter == null) {
                 logger.warn("任务下没有断句，taskId: {}", taskId);
                 return;
             }
 
-            // 2. 统计各状态的数量
-            int total = sentences.size();
-            long completed = sentences.stream()
-                    .filter(s -> Objects.equals(s.getSynthesisStatus(), SynthesisStatus.Status.COMPLETED))
-                    .count();
-            long failed = sentences.stream()
-                    .filter(s -> Objects.equals(s.getSynthesisStatus(), SynthesisStatus.Status.FAILED))
-                    .count();
-            long processing = sentences.stream()
-                    .filter(s -> Objects.equals(s.getSynthesisStatus(), SynthesisStatus.Status.PROCESSING))
-                    .count();
-            long pending = sentences.stream()
-                    .filter(s -> Objects.equals(s.getSynthesisStatus(), SynthesisStatus.Status.PENDING))
-                    .count();
+            // 2. 各状态的数量
+            int pending = valueOf(counter.getPendingCount());
+            int processing = valueOf(counter.getProcessingCount());
+            int completed = valueOf(counter.getCompletedCount());
+            int failed = valueOf(counter.getFailedCount());
+            int total = pending + processing + completed + failed;
+            if (total <= 0) {
+                logger.warn("任务下没有断句，taskId: {}", taskId);
+                return;
+            }
 
             // 3. 根据规则判断并更新 task 状态（优先级：失败 > 进行中 > 已完成）
             Integer newStatus = null;
@@ -79,4 +84,8 @@ public class TaskStatusUpdateServiceImpl implements TaskStatusUpdateService {
             // 不抛出异常，避免影响主流程
         }
     }
+
+    private static int valueOf(Integer count) {
+        return count != null ? count : 0;
+    }
 }
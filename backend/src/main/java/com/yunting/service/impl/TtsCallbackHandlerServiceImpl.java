@@ -1,29 +1,24 @@
 package com.yunting.service.impl;
 
+import com.yunting.dto.progress.TaskProgressEvent;
 import com.yunting.dto.synthesis.TtsCallbackRequest;
 import com.yunting.exception.BusinessException;
 import com.yunting.mapper.BreakingSentenceMapper;
 import com.yunting.model.BreakingSentence;
+import com.yunting.service.AudioSegmentCache;
+import com.yunting.service.AudioSegmentNormalizer;
 import com.yunting.service.ObsStorageService;
+import com.yunting.service.TaskProgressEventBus;
 import com.yunting.service.TaskStatusUpdateService;
 import com.yunting.service.TtsCallbackHandlerService;
+import com.yunting.service.TtsSynthesisCacheService;
 import com.yunting.constant.SynthesisStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.net.URL;
-import java.net.URLConnection;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
 /**
  * TTS回调处理服务实现
  */
@@ -35,16 +30,25 @@ public class TtsCallbackHandlerServiceImpl implements TtsCallbackHandlerService
     private final BreakingSentenceMapper breakingSentenceMapper;
     private final ObsStorageService obsStorageService;
     private final TaskStatusUpdateService taskStatusUpdateService;
-
-    @Value("${file.storage.local.path:temp/audio}")
-    private String localStoragePath;
+    private final TtsSynthesisCacheService ttsSynthesisCacheService;
+    private final TaskProgressEventBus taskProgressEventBus;
+    private final AudioSegmentCache audioSegmentCache;
+    private final AudioSegmentNormalizer audioSegmentNormalizer;
 
     public TtsCallbackHandlerServiceImpl(BreakingSentenceMapper breakingSentenceMapper,
                                          ObsStorageService obsStorageService,
-                                         TaskStatusUpdateService taskStatusUpdateService) {
+                                         TaskStatusUpdateService taskStatusUpdateService,
+                                         TtsSynthesisCacheService ttsSynthesisCacheService,
+                                         TaskProgressEventBus taskProgressEventBus,
+                                         AudioSegmentCache audioSegmentCache,
+                                         AudioSegmentNormalizer audioSegmentNormalizer) {
         this.breakingSentenceMapper = breakingSentenceMapper;
         this.obsStorageService = obsStorageService;
         this.taskStatusUpdateService = taskStatusUpdateService;
+        this.ttsSynthesisCacheService = ttsSynthesisCacheService;
+        this.taskProgressEventBus = taskProgressEventBus;
+        this.audioSegmentCache = audioSegmentCache;
+        this.audioSegmentNormalizer = audioSegmentNormalizer;
     }
 
     @Override
@@ -67,6 +71,12 @@ public class TtsCallbackHandlerServiceImpl implements TtsCallbackHandlerService
         }
 
         Long breakingSentenceId = sentence.getBreakingSentenceId();
+        if (!Integer.valueOf(SynthesisStatus.Status.PROCESSING).equals(sentence.getSynthesisStatus())) {
+            // 已经由回调或对账处理过，避免重复下载上传
+            logger.info("断句已不是合成中状态，忽略重复回调，jobId: {}, breakingSentenceId: {}, 当前状态: {}",
+                    jobId, breakingSentenceId, sentence.getSynthesisStatus());
+            return;
+        }
         logger.info("处理TTS回调，jobId: {}, status: {}, breakingSentenceId: {}", jobId, status, breakingSentenceId);
 
         try {
@@ -101,116 +111,82 @@ public class TtsCallbackHandlerServiceImpl implements TtsCallbackHandlerService
                     callbackRequest.getJobId(), breakingSentenceId);
             breakingSentenceMapper.updateSynthesisInfo(breakingSentenceId, SynthesisStatus.Status.FAILED, null, null);
             // 更新失败后也要检查并更新 task 状态
-            BreakingSentence sentence = breakingSentenceMapper.selectById(breakingSentenceId);
-            if (sentence != null) {
-                taskStatusUpdateService.updateTaskStatusIfNeeded(sentence.getTaskId());
-            }
+            onSentenceStatusChanged(breakingSentenceId);
             return;
         }
 
-        File localFile = null;
         try {
-            // 1. 生成本地文件路径
+            // 1. 生成OBS对象键
             String fileName = "breaking_" + breakingSentenceId + "_" + System.currentTimeMillis() + ".wav";
-            Path localDir = Paths.get(localStoragePath);
-            
-            // 确保本地存储目录存在
-            if (!Files.exists(localDir)) {
-                Files.createDirectories(localDir);
-                logger.info("创建本地存储目录: {}", localDir.toAbsolutePath());
-            }
-            
-            localFile = localDir.resolve(fileName).toFile();
-
-            // 2. 从下载URL下载文件到本地
-            logger.info("开始从URL下载文件到本地，downloadUrl: {}, localFile: {}", 
-                    audioDownloadUrl, localFile.getAbsolutePath());
-            downloadFileToLocal(audioDownloadUrl, localFile);
-            logger.info("文件下载成功，本地文件: {}, 文件大小: {} bytes", 
-                    localFile.getAbsolutePath(), localFile.length());
-
-            // 3. 生成OBS对象键
             String objectKey = obsStorageService.buildObjectKey(fileName);
 
-            // 4. 从本地文件上传到OBS
-            logger.info("开始从本地文件上传到OBS，localFile: {}, objectKey: {}", 
-                    localFile.getAbsolutePath(), objectKey);
-            String obsUrl = obsStorageService.uploadFromFile(localFile, objectKey);
-            logger.info("文件上传到OBS成功，OBS URL: {}", obsUrl);
-
-            // 5. 转换音频时长（秒转毫秒）
+            // 2. 转换音频时长（秒转毫秒），默认取自回调内容
             Integer audioDuration = audioDurationSeconds != null ? 
                     audioDurationSeconds * 1000 : null;
+            String audioFormat = null;
+
+            // 3. 上传到OBS，同时写入本地断句音频缓存，供之后的音频合并直接使用
+            String obsUrl;
+            if (audioSegmentNormalizer.isEnabled()) {
+                // 按下载流开头的 WAV 头部判断格式并记录，合并时可以直接拼接；时长按PCM数据长度计算，比回调的整秒更准确
+                try (AudioSegmentNormalizer.SegmentDownload download = audioSegmentNormalizer.open(audioDownloadUrl)) {
+                    if (download.isCanonical()) {
+                        // 已是标准格式：直接流式上传到OBS
+                        try (AudioSegmentCache.Staging staging = audioSegmentCache.beginStaging()) {
+                            obsUrl = obsStorageService.uploadFromStream(download.getInputStream(),
+                                    download.getContentLength(), download.getContentType(), objectKey,
+                                    staging != null ? staging.getOutputStream() : null);
+                            if (staging != null) {
+                                staging.commit(obsUrl);
+                            }
+                        }
+                        audioFormat = download.getAudioFormat();
+                        if (download.getDurationMs() != null) {
+                            audioDuration = download.getDurationMs();
+                        }
+                    } else {
+                        // 其他格式：下载到本地转换为标准格式后再上传
+                        try (AudioSegmentNormalizer.NormalizedSegment segment =
+                                     audioSegmentNormalizer.normalize(download, breakingSentenceId)) {
+                            obsUrl = obsStorageService.uploadFromFile(segment.getFile(), objectKey);
+                            audioSegmentCache.put(obsUrl, segment.getFile().toPath());
+                            audioFormat = segment.getAudioFormat();
+                            if (segment.getDurationMs() != null) {
+                                audioDuration = segment.getDurationMs();
+                            }
+                        }
+                    }
+                }
+            } else {
+                // 从下载URL直接流式上传到OBS
+                try (AudioSegmentCache.Staging staging = audioSegmentCache.beginStaging()) {
+                    obsUrl = obsStorageService.uploadFromUrl(audioDownloadUrl, objectKey,
+                            staging != null ? staging.getOutputStream() : null);
+                    if (staging != null) {
+                        staging.commit(obsUrl);
+                    }
+                }
+            }
+            logger.info("文件上传到OBS成功，OBS URL: {}", obsUrl);
 
-            // 6. 更新数据库
-            breakingSentenceMapper.updateSynthesisInfo(breakingSentenceId, SynthesisStatus.Status.COMPLETED, obsUrl, audioDuration);
-            logger.info("TTS任务完成，已更新数据库，breakingSentenceId: {}, audioUrl: {}, duration: {}ms", 
-                    breakingSentenceId, obsUrl, audioDuration);
+            // 4. 更新数据库
+            breakingSentenceMapper.updateSynthesisResult(breakingSentenceId, SynthesisStatus.Status.COMPLETED,
+                    obsUrl, audioDuration, audioFormat);
+            logger.info("TTS任务完成，已更新数据库，breakingSentenceId: {}, audioUrl: {}, duration: {}ms, format: {}", 
+                    breakingSentenceId, obsUrl, audioDuration, audioFormat);
 
-            // 7. 检查并更新 task 状态
-            BreakingSentence sentence = breakingSentenceMapper.selectById(breakingSentenceId);
+            // 5. 检查并更新 task 状态，并写入合成结果缓存
+            BreakingSentence sentence = onSentenceStatusChanged(breakingSentenceId);
             if (sentence != null) {
-                taskStatusUpdateService.updateTaskStatusIfNeeded(sentence.getTaskId());
+                ttsSynthesisCacheService.save(sentence.getSynthesisCacheKey(), obsUrl, audioDuration, audioFormat);
             }
 
         } catch (Exception e) {
             logger.error("处理完成回调异常，breakingSentenceId: {}", breakingSentenceId, e);
             breakingSentenceMapper.updateSynthesisInfo(breakingSentenceId, SynthesisStatus.Status.FAILED, null, null);
             // 更新失败后也要检查并更新 task 状态
-            BreakingSentence sentence = breakingSentenceMapper.selectById(breakingSentenceId);
-            if (sentence != null) {
-                taskStatusUpdateService.updateTaskStatusIfNeeded(sentence.getTaskId());
-            }
+            onSentenceStatusChanged(breakingSentenceId);
             throw new BusinessException(10500, "处理音频文件失败: " + e.getMessage());
-        } finally {
-            // 清理临时文件
-            if (localFile != null && localFile.exists()) {
-                try {
-                    boolean deleted = localFile.delete();
-                    if (deleted) {
-                        logger.info("已删除临时文件: {}", localFile.getAbsolutePath());
-                    } else {
-                        logger.warn("删除临时文件失败: {}", localFile.getAbsolutePath());
-                    }
-                } catch (Exception e) {
-                    logger.warn("删除临时文件时发生异常: {}", localFile.getAbsolutePath(), e);
-                }
-            }
-        }
-    }
-
-    /**
-     * 从URL下载文件到本地
-     * 
-     * @param downloadUrl 下载URL
-     * @param localFile 本地文件
-     */
-    private void downloadFileToLocal(String downloadUrl, File localFile) {
-        try {
-            URL url = new URL(downloadUrl);
-            URLConnection connection = url.openConnection();
-            connection.setConnectTimeout(30000); // 30秒连接超时
-            connection.setReadTimeout(300000); // 5分钟读取超时
-            
-            try (InputStream inputStream = connection.getInputStream();
-                 FileOutputStream outputStream = new FileOutputStream(localFile)) {
-                
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                long totalBytes = 0;
-                
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                    totalBytes += bytesRead;
-                }
-                
-                outputStream.flush();
-                logger.info("文件下载完成，总大小: {} bytes", totalBytes);
-            }
-        } catch (Exception e) {
-            logger.error("下载文件失败，URL: {}, localFile: {}", downloadUrl, 
-                    localFile.getAbsolutePath(), e);
-            throw new RuntimeException("下载文件失败: " + e.getMessage(), e);
         }
     }
 
@@ -223,9 +199,20 @@ public class TtsCallbackHandlerServiceImpl implements TtsCallbackHandlerService
         breakingSentenceMapper.updateSynthesisInfo(breakingSentenceId, SynthesisStatus.Status.FAILED, null, null);
         
         // 检查并更新 task 状态
+        onSentenceStatusChanged(breakingSentenceId);
+    }
+
+    /**
+     * 断句状态变化后：检查并更新 task 状态，推送进度事件
+     *
+     * @return 更新后的断句，不存在时返回 null
+     */
+    private BreakingSentence onSentenceStatusChanged(Long breakingSentenceId) {
         BreakingSentence sentence = breakingSentenceMapper.selectById(breakingSentenceId);
         if (sentence != null) {
             taskStatusUpdateService.updateTaskStatusIfNeeded(sentence.getTaskId());
+            taskProgressEventBus.publish(TaskProgressEvent.sentence(sentence));
         }
+        return sentence;
     }
 }
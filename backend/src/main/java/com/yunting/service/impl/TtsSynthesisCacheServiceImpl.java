@@ -0,0 +1,151 @@
+package com.yunting.service.impl;
+
+import com.yunting.dto.synthesis.TtsSynthesisRequest;
+import com.yunting.mapper.TtsSynthesisCacheMapper;
+import com.yunting.model.ReadingRule;
+import com.yunting.model.TtsSynthesisCache;
+import com.yunting.service.ReadingRuleAggregationService;
+import com.yunting.service.TtsSynthesisCacheService;
+import com.yunting.util.HashUtil;
+import com.yunting.util.ReadingRuleFingerprintUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * TTS合成结果缓存服务实现
+ * 缓存读写失败只记录日志，按未命中处理，不影响正常合成
+ */
+@Service
+public class TtsSynthesisCacheServiceImpl implements TtsSynthesisCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TtsSynthesisCacheServiceImpl.class);
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final TtsSynthesisCacheMapper ttsSynthesisCacheMapper;
+    private final ReadingRuleAggregationService readingRuleAggregationService;
+
+    @Value("${tts.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    public TtsSynthesisCacheServiceImpl(TtsSynthesisCacheMapper ttsSynthesisCacheMapper,
+                                        ReadingRuleAggregationService readingRuleAggregationService) {
+        this.ttsSynthesisCacheMapper = ttsSynthesisCacheMapper;
+        this.readingRuleAggregationService = readingRuleAggregationService;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return cacheEnabled;
+    }
+
+    @Override
+    public String buildCacheKey(TtsSynthesisRequest request) {
+        if (!cacheEnabled) {
+            return null;
+        }
+        try {
+            // 生效的阅读规则会改变读音，必须计入缓存键
+            List<ReadingRule> rules = readingRuleAggregationService.aggregateReadingRules(request.getBreakingSentenceId());
+            return buildCacheKey(request, rules);
+        } catch (Exception e) {
+            logger.warn("计算TTS合成缓存键失败，按未命中处理，breakingSentenceId: {}", request.getBreakingSentenceId(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public String buildCacheKey(TtsSynthesisRequest request, List<ReadingRule> rules) {
+        if (!cacheEnabled) {
+            return null;
+        }
+        try {
+            String ruleFingerprint = ReadingRuleFingerprintUtil.fingerprint(rules);
+
+            String content = request.getSsml() + SEPARATOR
+                    + request.getVoiceId() + SEPARATOR
+                    + request.getSpeechRate() + SEPARATOR
+                    + request.getVolume() + SEPARATOR
+                    + request.getPitch() + SEPARATOR
+                    + ruleFingerprint;
+            return HashUtil.sha256Hex(content);
+        } catch (Exception e) {
+            logger.warn("计算TTS合成缓存键失败，按未命中处理，breakingSentenceId: {}", request.getBreakingSentenceId(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public TtsSynthesisCache lookup(String cacheKey) {
+        if (!StringUtils.hasText(cacheKey)) {
+            return null;
+        }
+        try {
+            TtsSynthesisCache cache = ttsSynthesisCacheMapper.selectByCacheKey(cacheKey);
+            if (cache == null || !StringUtils.hasText(cache.getAudioUrl())) {
+                return null;
+            }
+            ttsSynthesisCacheMapper.incrementHitCount(cacheKey);
+            return cache;
+        } catch (Exception e) {
+            logger.warn("查询TTS合成缓存失败，按未命中处理，cacheKey: {}", cacheKey, e);
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, TtsSynthesisCache> lookupAll(Collection<String> cacheKeys) {
+        Map<String, TtsSynthesisCache> result = new HashMap<>();
+        if (cacheKeys == null) {
+            return result;
+        }
+        List<String> keys = cacheKeys.stream()
+                .filter(StringUtils::hasText)
+                .distinct()
+                .collect(Collectors.toList());
+        if (keys.isEmpty()) {
+            return result;
+        }
+        try {
+            for (TtsSynthesisCache cache : ttsSynthesisCacheMapper.selectByCacheKeys(keys)) {
+                if (StringUtils.hasText(cache.getAudioUrl())) {
+                    result.put(cache.getCacheKey(), cache);
+                }
+            }
+            if (!result.isEmpty()) {
+                ttsSynthesisCacheMapper.incrementHitCounts(result.keySet());
+            }
+        } catch (Exception e) {
+            logger.warn("批量查询TTS合成缓存失败，按未命中处理，缓存键数量: {}", keys.size(), e);
+            result.clear();
+        }
+        return result;
+    }
+
+    @Override
+    public void save(String cacheKey, String audioUrl, Integer audioDuration, String audioFormat) {
+        if (!StringUtils.hasText(cacheKey) || !StringUtils.hasText(audioUrl)) {
+            return;
+        }
+        try {
+            TtsSynthesisCache cache = new TtsSynthesisCache();
+            cache.setCacheKey(cacheKey);
+            cache.setAudioUrl(audioUrl);
+            cache.setAudioDuration(audioDuration);
+            cache.setAudioFormat(audioFormat);
+            ttsSynthesisCacheMapper.upsert(cache);
+            logger.debug("写入TTS合成缓存，cacheKey: {}, audioUrl: {}", cacheKey, audioUrl);
+        } catch (Exception e) {
+            logger.warn("写入TTS合成缓存失败，cacheKey: {}", cacheKey, e);
+        }
+    }
+}
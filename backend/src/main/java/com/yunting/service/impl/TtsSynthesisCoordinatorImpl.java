@@ -1,20 +1,25 @@
 package com.yunting.service.impl;
 
 import com.yunting.dto.synthesis.TtsSynthesisRequest;
+import com.yunting.mapper.VocabularySyncStateMapper;
 import com.yunting.model.ReadingRule;
 import com.yunting.service.HuaweiCloudVocabularyService;
 import com.yunting.service.ReadingRuleAggregationService;
 import com.yunting.service.TtsSynthesisCoordinator;
+import com.yunting.util.ReadingRuleFingerprintUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * TTS合成协调器实现
+ * 在本地维护华为云自定义读法规则的镜像及其指纹，规则集未变化时跳过对华为云的查询和更新。
+ * 云端规则集是全局共享的，各节点查询或更新云端后把指纹写入 vocabulary_sync_state；
+ * 使用镜像前先核对共享指纹，与本地镜像不一致说明其他节点已修改云端规则，需要重新查询
  */
 @Service
 public class TtsSynthesisCoordinatorImpl implements TtsSynthesisCoordinator {
@@ -23,14 +28,33 @@ public class TtsSynthesisCoordinatorImpl implements TtsSynthesisCoordinator {
 
     private final ReadingRuleAggregationService readingRuleAggregationService;
     private final HuaweiCloudVocabularyService huaweiCloudVocabularyService;
+    private final VocabularySyncStateMapper vocabularySyncStateMapper;
 
     @Value("${huaweicloud.vocabulary.update.timeout:30}")
     private int vocabularyUpdateTimeout;
 
+    /**
+     * 本地镜像的有效期（秒），过期后重新查询华为云，以发现绕过本服务（如控制台）对云端规则的修改
+     */
+    @Value("${huaweicloud.vocabulary.mirror-ttl:60}")
+    private int mirrorTtlSeconds;
+
+    /**
+     * 华为云自定义读法规则的本地镜像，每次查询或更新云端后替换
+     */
+    private volatile VocabularyMirror mirror;
+
+    /**
+     * 同步锁：多个消费线程同时需要同步时只有一个线程访问华为云，其余线程等待后直接复用结果
+     */
+    private final Object syncLock = new Object();
+
     public TtsSynthesisCoordinatorImpl(ReadingRuleAggregationService readingRuleAggregationService,
-                                      HuaweiCloudVocabularyService huaweiCloudVocabularyService) {
+                                      HuaweiCloudVocabularyService huaweiCloudVocabularyService,
+                                      VocabularySyncStateMapper vocabularySyncStateMapper) {
         this.readingRuleAggregationService = readingRuleAggregationService;
         this.huaweiCloudVocabularyService = huaweiCloudVocabularyService;
+        this.vocabularySyncStateMapper = vocabularySyncStateMapper;
     }
 
     @Override
@@ -42,35 +66,18 @@ public class TtsSynthesisCoordinatorImpl implements TtsSynthesisCoordinator {
         try {
             // 1. 汇总断句需要的阅读规则
             List<ReadingRule> requiredRules = readingRuleAggregationService.aggregateReadingRules(breakingSentenceId);
+            String requiredFingerprint = ReadingRuleFingerprintUtil.fingerprint(requiredRules);
             logger.info("汇总断句需要的阅读规则，breakingSentenceId: {}, 规则数量: {}", 
                     breakingSentenceId, requiredRules.size());
 
-            // 2. 查询华为云上的规则
-            List<HuaweiCloudVocabularyService.VocabularyConfig> cloudConfigs = 
-                    huaweiCloudVocabularyService.listVocabularyConfigs();
-            logger.info("查询华为云上的自定义读法规则，数量: {}", cloudConfigs.size());
-
-            // 3. 对比规则是否一致
-            boolean isConsistent = compareRules(requiredRules, cloudConfigs);
-
-            if (!isConsistent) {
-                logger.info("阅读规则不一致，需要更新，breakingSentenceId: {}", breakingSentenceId);
-                
-                // 4. 更新华为云上的规则
-                try {
-                    huaweiCloudVocabularyService.updateVocabularyConfigs(requiredRules);
-                    logger.info("更新华为云自定义读法规则成功，breakingSentenceId: {}, 规则数量: {}", 
-                            breakingSentenceId, requiredRules.size());
-                } catch (Exception e) {
-                    logger.error("更新华为云自定义读法规则失败，但继续执行合成，breakingSentenceId: {}", 
-                            breakingSentenceId, e);
-                    // 不抛出异常，继续执行合成
-                }
-            } else {
+            // 2. 与本地镜像及共享指纹一致时无需访问华为云
+            if (isMirrorInSync(requiredFingerprint, readSharedFingerprint())) {
                 logger.info("阅读规则一致，无需更新，breakingSentenceId: {}", breakingSentenceId);
+            } else {
+                syncVocabularyConfigs(breakingSentenceId, requiredRules, requiredFingerprint);
             }
 
-            // 6. 执行TTS合成
+            // 3. 执行TTS合成
             createTtsJobCallback.run();
             logger.info("TTS合成请求已提交，breakingSentenceId: {}", breakingSentenceId);
 
@@ -82,65 +89,105 @@ public class TtsSynthesisCoordinatorImpl implements TtsSynthesisCoordinator {
     }
 
     /**
-     * 对比规则是否一致
-     * 只有当 type、key、value 完全一样时，才认为一致
-     * 
-     * @param requiredRules 需要的规则列表
-     * @param cloudConfigs 华为云上的规则列表
-     * @return 是否一致
+     * 将华为云上的规则同步为需要的规则，并更新本地镜像
+     * 同一时刻只有一个线程执行同步，等待的线程拿到锁后先复查镜像，规则集相同则直接返回
      */
-    private boolean compareRules(List<ReadingRule> requiredRules, 
-                                List<HuaweiCloudVocabularyService.VocabularyConfig> cloudConfigs) {
-        // 构建需要的规则Map（pattern -> ReadingRule），用于完整对比
-        Map<String, ReadingRule> requiredRuleMap = requiredRules.stream()
-                .collect(Collectors.toMap(
-                        ReadingRule::getPattern,
-                        rule -> rule,
-                        (v1, v2) -> v1  // 如果有重复，保留第一个
-                ));
-
-        // 构建华为云上的规则Map（pattern -> VocabularyConfig），用于完整对比
-        Map<String, HuaweiCloudVocabularyService.VocabularyConfig> cloudRuleMap = cloudConfigs.stream()
-                .collect(Collectors.toMap(
-                        HuaweiCloudVocabularyService.VocabularyConfig::getPattern,
-                        config -> config,
-                        (v1, v2) -> v1  // 如果有重复，保留第一个
-                ));
-
-        // 对比两个Map的数量是否一致
-        if (requiredRuleMap.size() != cloudRuleMap.size()) {
-            logger.debug("规则数量不一致，需要的: {}, 华为云上的: {}", 
-                    requiredRuleMap.size(), cloudRuleMap.size());
-            return false;
-        }
-
-        // 对比每个规则的 type、key、value 是否完全一致
-        for (Map.Entry<String, ReadingRule> entry : requiredRuleMap.entrySet()) {
-            String pattern = entry.getKey();
-            ReadingRule requiredRule = entry.getValue();
-            HuaweiCloudVocabularyService.VocabularyConfig cloudConfig = cloudRuleMap.get(pattern);
-
-            // 如果云端没有这个pattern，不一致
-            if (cloudConfig == null) {
-                logger.debug("规则不存在于云端，pattern: {}", pattern);
-                return false;
+    private void syncVocabularyConfigs(Long breakingSentenceId, List<ReadingRule> requiredRules,
+                                       String requiredFingerprint) {
+        synchronized (syncLock) {
+            String sharedFingerprint = readSharedFingerprint();
+            if (isMirrorInSync(requiredFingerprint, sharedFingerprint)) {
+                logger.info("阅读规则已由其他线程同步，无需更新，breakingSentenceId: {}", breakingSentenceId);
+                return;
             }
 
-            // 对比 ruleValue
-            if (!Objects.equals(requiredRule.getRuleValue(), cloudConfig.getRuleValue())) {
-                logger.debug("规则值不一致，pattern: {}, 需要的: {}, 华为云上的: {}", 
-                        pattern, requiredRule.getRuleValue(), cloudConfig.getRuleValue());
-                return false;
+            // 镜像不存在、已过期或与共享指纹不一致（其他节点修改过云端）时查询华为云上的规则
+            VocabularyMirror current = mirror;
+            if (current == null || current.isExpired(mirrorTtlSeconds)
+                    || !current.fingerprint.equals(sharedFingerprint)) {
+                List<HuaweiCloudVocabularyService.VocabularyConfig> cloudConfigs =
+                        huaweiCloudVocabularyService.listVocabularyConfigs();
+                logger.info("查询华为云上的自定义读法规则，数量: {}", cloudConfigs.size());
+                current = new VocabularyMirror(cloudConfigs);
+                mirror = current;
+                publishSharedFingerprint(current.fingerprint);
+                if (current.fingerprint.equals(requiredFingerprint)) {
+                    logger.info("阅读规则一致，无需更新，breakingSentenceId: {}", breakingSentenceId);
+                    return;
+                }
             }
 
-            // 对比 ruleType
-            if (!Objects.equals(requiredRule.getRuleType(), cloudConfig.getRuleType())) {
-                logger.debug("规则类型不一致，pattern: {}, 需要的: {}, 华为云上的: {}", 
-                        pattern, requiredRule.getRuleType(), cloudConfig.getRuleType());
-                return false;
+            logger.info("阅读规则不一致，需要更新，breakingSentenceId: {}", breakingSentenceId);
+            // 修改云端前先清空共享指纹：更新中途或之后写入指纹失败时，其他节点都会重新查询而不是沿用旧镜像
+            publishSharedFingerprint(null);
+            try {
+                List<HuaweiCloudVocabularyService.VocabularyConfig> updatedConfigs =
+                        huaweiCloudVocabularyService.updateVocabularyConfigs(requiredRules, current.configs);
+                VocabularyMirror updated = new VocabularyMirror(updatedConfigs);
+                mirror = updated;
+                publishSharedFingerprint(updated.fingerprint);
+                logger.info("更新华为云自定义读法规则成功，breakingSentenceId: {}, 规则数量: {}", 
+                        breakingSentenceId, requiredRules.size());
+            } catch (Exception e) {
+                // 云端状态未知，丢弃镜像，共享指纹已清空，各节点下次同步时重新查询
+                mirror = null;
+                logger.error("更新华为云自定义读法规则失败，但继续执行合成，breakingSentenceId: {}", 
+                        breakingSentenceId, e);
+                // 不抛出异常，继续执行合成
             }
         }
+    }
+
+    /**
+     * 本地镜像是否有效、与共享指纹一致且与需要的规则集一致
+     */
+    private boolean isMirrorInSync(String requiredFingerprint, String sharedFingerprint) {
+        VocabularyMirror current = mirror;
+        return current != null
+                && !current.isExpired(mirrorTtlSeconds)
+                && current.fingerprint.equals(requiredFingerprint)
+                && current.fingerprint.equals(sharedFingerprint);
+    }
+
+    /**
+     * 读取共享指纹，读取失败时返回 null（视为不一致，回退到查询华为云）
+     */
+    private String readSharedFingerprint() {
+        try {
+            return vocabularySyncStateMapper.selectFingerprint();
+        } catch (Exception e) {
+            logger.warn("读取读法规则共享指纹失败，改为查询华为云: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入共享指纹，失败时只记录日志
+     */
+    private void publishSharedFingerprint(String fingerprint) {
+        try {
+            vocabularySyncStateMapper.upsertFingerprint(fingerprint);
+        } catch (Exception e) {
+            logger.warn("写入读法规则共享指纹失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 华为云规则的本地镜像（不可变）
+     */
+    private static final class VocabularyMirror {
+        private final List<HuaweiCloudVocabularyService.VocabularyConfig> configs;
+        private final String fingerprint;
+        private final long syncedAtNanos;
+
+        VocabularyMirror(List<HuaweiCloudVocabularyService.VocabularyConfig> configs) {
+            this.configs = List.copyOf(configs);
+            this.fingerprint = ReadingRuleFingerprintUtil.fingerprintConfigs(configs);
+            this.syncedAtNanos = System.nanoTime();
+        }
 
-        return true;
+        boolean isExpired(int ttlSeconds) {
+            return System.nanoTime() - syncedAtNanos > TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
     }
 }
@@ -0,0 +1,273 @@
+package com.yunting.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 音频时长解析工具类
+ * 直接解析文件头计算时长，不启动 ffprobe 进程：
+ * - WAV：PCM 数据长度 / 字节率
+ * - MP3：优先读取首帧的 Xing/Info/VBRI 帧数，没有时逐帧扫描累加采样数
+ * 无法识别的格式返回 -1，由调用方回退到 ffprobe
+ */
+public final class AudioDurationUtil {
+
+    private static final int MPEG_VERSION_25 = 0;
+    private static final int MPEG_VERSION_2 = 2;
+    private static final int MPEG_VERSION_1 = 3;
+
+    private static final int LAYER_3 = 1;
+    private static final int LAYER_2 = 2;
+    private static final int LAYER_1 = 3;
+
+    // [MPEG-1 / MPEG-2、2.5][Layer I / II / III][索引]，单位 kbps，0 表示 free format
+    private static final int[][][] BITRATES = {
+            {
+                    {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+                    {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+                    {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320}
+            },
+            {
+                    {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+                    {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+                    {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}
+            }
+    };
+
+    private static final int[] SAMPLE_RATES_MPEG1 = {44100, 48000, 32000};
+
+    // 开头连续识别到这么多帧才认为是 MP3，避免把其他格式中的偶然同步字误判为帧头
+    private static final int MIN_LEADING_FRAMES = 3;
+    // 查找第一帧时最多跳过的字节数（ID3v2 标签之后）
+    private static final int MAX_SYNC_SEARCH = 64 * 1024;
+
+    private AudioDurationUtil() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 解析音频时长
+     *
+     * @param file 音频文件
+     * @return 时长（微秒）；无法识别格式时返回 -1
+     * @throws IOException 读取文件失败
+     */
+    public static long probeDurationMicros(File file) throws IOException {
+        WavUtil.WavFormat wavFormat = WavUtil.readFormat(file);
+        if (wavFormat != null) {
+            if (wavFormat.getAudioFormat() != WavUtil.FORMAT_PCM || wavFormat.getByteRate() <= 0) {
+                return -1;
+            }
+            return wavFormat.getDataLength() * 1_000_000L / wavFormat.getByteRate();
+        }
+        return probeMp3DurationMicros(file);
+    }
+
+    private static long probeMp3DurationMicros(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 4 || size > Integer.MAX_VALUE) {
+                return -1;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int length = (int) size;
+            int end = hasId3v1Tag(buffer, length) ? length - 128 : length;
+
+            int first = findFirstFrame(buffer, skipId3v2Tag(buffer, length), end);
+            if (first < 0) {
+                return -1;
+            }
+            FrameHeader header = FrameHeader.parse(buffer, first, end);
+
+            // VBR 文件的第一帧通常是 Xing/Info/VBRI 信息帧，记录了总帧数
+            long frameCount = readVbrFrameCount(buffer, first, header, end);
+            if (frameCount > 0) {
+                return frameCount * header.samplesPerFrame * 1_000_000L / header.sampleRate;
+            }
+
+            // 没有信息帧（CBR）：逐帧扫描累加采样数，采样率中途变化时分别计算
+            long micros = 0;
+            long samples = 0;
+            int sampleRate = header.sampleRate;
+            int position = first;
+            while (position + 4 <= end) {
+                FrameHeader frame = FrameHeader.parse(buffer, position, end);
+                if (frame == null) {
+                    // 帧间有垃圾数据时重新同步
+                    int next = findFirstFrame(buffer, position + 1, end);
+                    if (next < 0) {
+                        break;
+                    }
+                    position = next;
+                    continue;
+                }
+                if (frame.sampleRate != sampleRate) {
+                    micros += samples * 1_000_000L / sampleRate;
+                    samples = 0;
+                    sampleRate = frame.sampleRate;
+                }
+                samples += frame.samplesPerFrame;
+                position += frame.frameLength;
+            }
+            micros += samples * 1_000_000L / sampleRate;
+            return micros > 0 ? micros : -1;
+        }
+    }
+
+    /**
+     * 跳过文件开头的 ID3v2 标签
+     */
+    private static int skipId3v2Tag(MappedByteBuffer buffer, int length) {
+        if (length < 10 || buffer.get(0) != 'I' || buffer.get(1) != 'D' || buffer.get(2) != '3') {
+            return 0;
+        }
+        // 标签长度为 4 个 7 位有效字节（synchsafe integer）
+        int tagSize = ((buffer.get(6) & 0x7F) << 21) | ((buffer.get(7) & 0x7F) << 14)
+                | ((buffer.get(8) & 0x7F) << 7) | (buffer.get(9) & 0x7F);
+        boolean hasFooter = (buffer.get(5) & 0x10) != 0;
+        return (int) Math.min((long) length, 10L + tagSize + (hasFooter ? 10 : 0));
+    }
+
+    private static boolean hasId3v1Tag(MappedByteBuffer buffer, int length) {
+        return length >= 128 && buffer.get(length - 128) == 'T' && buffer.get(length - 127) == 'A'
+                && buffer.get(length - 126) == 'G';
+    }
+
+    /**
+     * 从 start 开始查找第一个可信的帧：之后紧跟着若干个参数一致的帧
+     */
+    private static int findFirstFrame(MappedByteBuffer buffer, int start, int end) {
+        int limit = (int) Math.min((long) end - 4, (long) start + MAX_SYNC_SEARCH);
+        for (int position = start; position <= limit; position++) {
+            if ((buffer.get(position) & 0xFF) != 0xFF) {
+                continue;
+            }
+            FrameHeader header = FrameHeader.parse(buffer, position, end);
+            if (header != null && isFrameSequence(buffer, position, header, end)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isFrameSequence(MappedByteBuffer buffer, int position, FrameHeader first, int end) {
+        int next = position + first.frameLength;
+        for (int i = 1; i < MIN_LEADING_FRAMES; i++) {
+            if (next >= end) {
+                // 文件很短，已到末尾
+                return true;
+            }
+            FrameHeader header = FrameHeader.parse(buffer, next, end);
+            if (header == null || header.version != first.version || header.layer != first.layer
+                    || header.sampleRate != first.sampleRate) {
+                return false;
+            }
+            next += header.frameLength;
+        }
+        return true;
+    }
+
+    /**
+     * 读取 Xing/Info 或 VBRI 信息帧中的帧数（不含信息帧本身），没有时返回 -1
+     */
+    private static long readVbrFrameCount(MappedByteBuffer buffer, int position, FrameHeader header, int end) {
+        // Xing/Info 位于帧头和 side information 之后
+        int sideInfoSize;
+        if (header.version == MPEG_VERSION_1) {
+            sideInfoSize = header.mono ? 17 : 32;
+        } else {
+            sideInfoSize = header.mono ? 9 : 17;
+        }
+        int xing = position + 4 + sideInfoSize;
+        if (header.layer == LAYER_3 && xing + 12 <= end
+                && (matches(buffer, xing, "Xing") || matches(buffer, xing, "Info"))) {
+            int flags = buffer.getInt(xing + 4);
+            if ((flags & 0x1) != 0) {
+                return Integer.toUnsignedLong(buffer.getInt(xing + 8));
+            }
+            return -1;
+        }
+        // VBRI 固定位于帧头之后 32 字节
+        int vbri = position + 4 + 32;
+        if (vbri + 18 <= end && matches(buffer, vbri, "VBRI")) {
+            return Integer.toUnsignedLong(buffer.getInt(vbri + 14));
+        }
+        return -1;
+    }
+
+    private static boolean matches(MappedByteBuffer buffer, int position, String tag) {
+        for (int i = 0; i < tag.length(); i++) {
+            if (buffer.get(position + i) != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * MPEG 音频帧头
+     */
+    private static final class FrameHeader {
+        private int version;
+        private int layer;
+        private int sampleRate;
+        private int samplesPerFrame;
+        private int frameLength;
+        private boolean mono;
+
+        /**
+         * 解析 position 处的帧头，不是合法帧头或帧超出文件范围时返回 null
+         */
+        static FrameHeader parse(MappedByteBuffer buffer, int position, int end) {
+            if (position + 4 > end) {
+                return null;
+            }
+            int b1 = buffer.get(position) & 0xFF;
+            int b2 = buffer.get(position + 1) & 0xFF;
+            int b3 = buffer.get(position + 2) & 0xFF;
+            int b4 = buffer.get(position + 3) & 0xFF;
+            if (b1 != 0xFF || (b2 & 0xE0) != 0xE0) {
+                return null;
+            }
+            int version = (b2 >> 3) & 0x3;
+            int layer = (b2 >> 1) & 0x3;
+            int bitrateIndex = (b3 >> 4) & 0xF;
+            int sampleRateIndex = (b3 >> 2) & 0x3;
+            // 保留值，以及不支持的 free format（无法从帧头得到帧长）
+            if (version == 1 || layer == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                return null;
+            }
+
+            FrameHeader header = new FrameHeader();
+            header.version = version;
+            header.layer = layer;
+            header.mono = ((b4 >> 6) & 0x3) == 3;
+
+            int sampleRate = SAMPLE_RATES_MPEG1[sampleRateIndex];
+            if (version == MPEG_VERSION_2) {
+                sampleRate /= 2;
+            } else if (version == MPEG_VERSION_25) {
+                sampleRate /= 4;
+            }
+            header.sampleRate = sampleRate;
+
+            int layerIndex = layer == LAYER_1 ? 0 : (layer == LAYER_2 ? 1 : 2);
+            int bitrate = BITRATES[version == MPEG_VERSION_1 ? 0 : 1][layerIndex][bitrateIndex] * 1000;
+            int padding = (b3 >> 1) & 0x1;
+            if (layer == LAYER_1) {
+                header.samplesPerFrame = 384;
+                header.frameLength = (12 * bitrate / sampleRate + padding) * 4;
+            } else {
+                header.samplesPerFrame = layer == LAYER_3 && version != MPEG_VERSION_1 ? 576 : 1152;
+                header.frameLength = header.samplesPerFrame / 8 * bitrate / sampleRate + padding;
+            }
+            if (header.frameLength < 4 || position + header.frameLength > end) {
+                return null;
+            }
+            return header;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.yunting.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 哈希工具类
+ */
+public final class HashUtil {
+
+    private HashUtil() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 计算字符串的 SHA-256 摘要
+     *
+     * @param content 原始内容（按 UTF-8 编码）
+     * @return 64位小写十六进制字符串
+     */
+    public static String sha256Hex(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // JDK 必须提供 SHA-256，不会发生
+            throw new IllegalStateException("SHA-256算法不可用", e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.yunting.util;
+
+import com.yunting.model.ReadingRule;
+import com.yunting.service.HuaweiCloudVocabularyService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 阅读规则集指纹工具类
+ * 按 pattern 去重（保留第一个，与规则对比逻辑一致）并排序后，对 (pattern, ruleType, ruleValue) 计算 SHA-256，
+ * 两个规则集指纹相同即表示内容完全一致，与规则顺序、vocabularyId 无关
+ */
+public final class ReadingRuleFingerprintUtil {
+
+    private static final char FIELD_SEPARATOR = '\u0000';
+    private static final char RULE_SEPARATOR = '\n';
+
+    private ReadingRuleFingerprintUtil() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 计算本地阅读规则集的指纹
+     */
+    public static String fingerprint(List<ReadingRule> rules) {
+        Map<String, String> entries = new TreeMap<>();
+        if (rules != null) {
+            for (ReadingRule rule : rules) {
+                if (rule.getPattern() == null) {
+                    continue;
+                }
+                entries.putIfAbsent(rule.getPattern(), entry(rule.getRuleType(), rule.getRuleValue()));
+            }
+        }
+        return digest(entries);
+    }
+
+    /**
+     * 计算华为云自定义读法规则集的指纹
+     */
+    public static String fingerprintConfigs(List<HuaweiCloudVocabularyService.VocabularyConfig> configs) {
+        Map<String, String> entries = new TreeMap<>();
+        if (configs != null) {
+            for (HuaweiCloudVocabularyService.VocabularyConfig config : configs) {
+                if (config.getPattern() == null) {
+                    continue;
+                }
+                entries.putIfAbsent(config.getPattern(), entry(config.getRuleType(), config.getRuleValue()));
+            }
+        }
+        return digest(entries);
+    }
+
+    private static String entry(Integer ruleType, String ruleValue) {
+        return ruleType + String.valueOf(FIELD_SEPARATOR) + (ruleValue != null ? ruleValue : "");
+    }
+
+    private static String digest(Map<String, String> entries) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            sb.append(entry.getKey()).append(FIELD_SEPARATOR).append(entry.getValue()).append(RULE_SEPARATOR);
+        }
+        return HashUtil.sha256Hex(sb.toString());
+    }
+}
@@ -4,6 +4,7 @@ import com.yunting.constant.SynthesisStatus;
 import com.yunting.model.BreakingSentence;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * 合成状态聚合工具类
@@ -26,30 +27,45 @@ public final class SynthesisStatusUtil {
      * @return 聚合后的合成状态值
      */
     public static Integer aggregateSynthesisStatus(List<BreakingSentence> breakingSentences) {
-        if (breakingSentences == null || breakingSentences.isEmpty()) {
+        if (breakingSentences == null) {
+            return SynthesisStatus.Status.PENDING; // 未合成
+        }
+        return aggregateStatusValues(breakingSentences.stream()
+                .map(BreakingSentence::getSynthesisStatus)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * 按同样的规则聚合一组合成状态值（null 视为未合成）
+     *
+     * @param statuses 合成状态值列表
+     * @return 聚合后的合成状态值
+     */
+    public static Integer aggregateStatusValues(List<Integer> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
             return SynthesisStatus.Status.PENDING; // 未合成
         }
 
         // 如果任一断句状态为 3（失败） → 返回 3（失败）
-        boolean hasFailed = breakingSentences.stream()
-                .anyMatch(bs -> bs.getSynthesisStatus() != null && 
-                        bs.getSynthesisStatus() == SynthesisStatus.Status.FAILED);
+        boolean hasFailed = statuses.stream()
+                .anyMatch(status -> status != null && 
+                        status == SynthesisStatus.Status.FAILED);
         if (hasFailed) {
             return SynthesisStatus.Status.FAILED; // 失败
         }
 
         // 如果所有断句状态都是 2（已完成） → 返回 2（已完成）
-        boolean allCompleted = breakingSentences.stream()
-                .allMatch(bs -> bs.getSynthesisStatus() != null && 
-                        bs.getSynthesisStatus() == SynthesisStatus.Status.COMPLETED);
+        boolean allCompleted = statuses.stream()
+                .allMatch(status -> status != null && 
+                        status == SynthesisStatus.Status.COMPLETED);
         if (allCompleted) {
             return SynthesisStatus.Status.COMPLETED; // 已完成
         }
 
         // 如果任一断句状态为 1（合成中） → 返回 1（进行中）
-        boolean hasInProgress = breakingSentences.stream()
-                .anyMatch(bs -> bs.getSynthesisStatus() != null && 
-                        bs.getSynthesisStatus() == SynthesisStatus.Status.PROCESSING);
+        boolean hasInProgress = statuses.stream()
+                .anyMatch(status -> status != null && 
+                        status == SynthesisStatus.Status.PROCESSING);
         if (hasInProgress) {
             return SynthesisStatus.Status.PROCESSING; // 进行中
         }
@@ -57,4 +73,3 @@ public final class SynthesisStatusUtil {
         return SynthesisStatus.Status.PENDING; // 默认未合成
     }
 }
-
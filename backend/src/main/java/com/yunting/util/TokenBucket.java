@@ -0,0 +1,145 @@
+package com.yunting.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶
+ * 以固定速率补充令牌，桶容量决定允许的突发数量。
+ * 采用“预约”方式发放令牌：令牌不足时允许透支，调用方按返回的等待时长休眠，
+ * 多个调用方因此按到达顺序排队，而不是忙等或轮询。
+ */
+public final class TokenBucket {
+
+    private int capacity;
+    private double ratePerSecond;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param ratePerSecond 每秒补充的令牌数
+     * @param capacity 桶容量（允许的最大突发数）
+     */
+    public TokenBucket(double ratePerSecond, int capacity) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond必须大于0");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity必须大于0");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 获取一个令牌，必要时阻塞等待
+     *
+     * @return 实际等待时长（纳秒）
+     * @throws InterruptedException 等待被中断
+     */
+    public long acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return waitNanos;
+    }
+
+    /**
+     * 在超时时间内尝试获取一个令牌
+     *
+     * @return 实际等待时长（纳秒），无法在超时时间内获取时返回 -1
+     * @throws InterruptedException 等待被中断
+     */
+    public long tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            refill(System.nanoTime());
+            waitNanos = nanosUntilAvailable();
+            if (waitNanos > unit.toNanos(timeout)) {
+                return -1;
+            }
+            tokens -= 1;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return waitNanos;
+    }
+
+    /**
+     * 预约一个令牌，返回需要等待的时长（纳秒）
+     */
+    private synchronized long reserve() {
+        refill(System.nanoTime());
+        long waitNanos = nanosUntilAvailable();
+        tokens -= 1;
+        return waitNanos;
+    }
+
+    /**
+     * 调整补充速率，已有令牌按旧速率结算
+     */
+    public synchronized void setRate(double newRatePerSecond) {
+        if (newRatePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond必须大于0");
+        }
+        refill(System.nanoTime());
+        this.ratePerSecond = newRatePerSecond;
+    }
+
+    /**
+     * 清空当前积累的令牌（被限流时使用，避免立即再次突发）
+     */
+    public synchronized void drain() {
+        refill(System.nanoTime());
+        if (tokens > 0) {
+            tokens = 0;
+        }
+    }
+
+    public synchronized double getRate() {
+        return ratePerSecond;
+    }
+
+    /**
+     * 调整桶容量，已积累的令牌超过新容量的部分被丢弃
+     */
+    public synchronized void setCapacity(int newCapacity) {
+        if (newCapacity <= 0) {
+            throw new IllegalArgumentException("capacity必须大于0");
+        }
+        refill(System.nanoTime());
+        this.capacity = newCapacity;
+        tokens = Math.min(tokens, newCapacity);
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 当前可用令牌数（透支时为负数）
+     */
+    public synchronized double getAvailableTokens() {
+        refill(System.nanoTime());
+        return tokens;
+    }
+
+    private long nanosUntilAvailable() {
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / ratePerSecond * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed <= 0) {
+            return;
+        }
+        tokens = Math.min(capacity, tokens + elapsed * ratePerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = nowNanos;
+    }
+}
@@ -0,0 +1,342 @@
+package com.yunting.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * WAV 文件工具类
+ * 解析 RIFF/WAVE 头部（本地文件，或下载流开头的若干字节），并在格式相同时直接拼接 PCM 数据
+ * （FileChannel.transferTo，不解码、不经过用户态缓冲区）
+ */
+public final class WavUtil {
+
+    /**
+     * 整数 PCM
+     */
+    public static final int FORMAT_PCM = 1;
+    /**
+     * WAVE_FORMAT_EXTENSIBLE，子格式在扩展字段中
+     */
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private static final int RIFF_HEADER_SIZE = 12;
+    private static final int CHUNK_HEADER_SIZE = 8;
+    private static final int CANONICAL_HEADER_SIZE = 44;
+    private static final int MAX_CHUNKS = 64;
+    private static final long MAX_RIFF_DATA_SIZE = 0xFFFFFFFFL - 36;
+
+    private WavUtil() {
+        // 工具类，禁止实例化
+    }
+
+    /**
+     * 解析 WAV 头部
+     *
+     * @param file 音频文件
+     * @return 格式信息；不是可识别的 WAV 文件时返回 null
+     * @throws IOException 读取文件失败
+     */
+    public static WavFormat readFormat(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            return parse((buffer, position) -> readFully(channel, buffer, position), fileSize, fileSize);
+        }
+    }
+
+    /**
+     * 按下载流开头的若干字节解析 WAV 头部，用于在下载完成前判断格式
+     *
+     * @param prefix 流开头的字节
+     * @param length prefix 中的有效字节数
+     * @param totalLength 完整内容的长度，未知时传 -1
+     * @return 格式信息；不是可识别的 WAV，或头部超出 prefix 范围时返回 null。
+     *         完整长度未知且 data 块没有回填长度时，数据长度为 -1
+     */
+    public static WavFormat readFormat(byte[] prefix, int length, long totalLength) {
+        try {
+            return parse((buffer, position) -> {
+                if (position >= length) {
+                    return 0;
+                }
+                int count = (int) Math.min(buffer.remaining(), length - position);
+                buffer.put(prefix, (int) position, count);
+                return count;
+            }, length, totalLength);
+        } catch (IOException e) {
+            // 内存读取不会失败
+            return null;
+        }
+    }
+
+    /**
+     * @param source 按位置读取字节
+     * @param readableSize 可读取的字节数（头部必须位于其中）
+     * @param totalSize 完整内容的长度，未知时为 -1
+     */
+    private static WavFormat parse(ByteSource source, long readableSize, long totalSize) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RIFF_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        if (source.read(header, 0) < RIFF_HEADER_SIZE
+                || !"RIFF".equals(fourCc(header, 0)) || !"WAVE".equals(fourCc(header, 8))) {
+            return null;
+        }
+
+        WavFormat format = null;
+        long position = RIFF_HEADER_SIZE;
+        ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < MAX_CHUNKS && position + CHUNK_HEADER_SIZE <= readableSize; i++) {
+            chunkHeader.clear();
+            if (source.read(chunkHeader, position) < CHUNK_HEADER_SIZE) {
+                return null;
+            }
+            String chunkId = fourCc(chunkHeader, 0);
+            long chunkSize = Integer.toUnsignedLong(chunkHeader.getInt(4));
+            long bodyPosition = position + CHUNK_HEADER_SIZE;
+
+            if ("fmt ".equals(chunkId)) {
+                format = readFmtChunk(source, bodyPosition, chunkSize);
+                if (format == null) {
+                    return null;
+                }
+            } else if ("data".equals(chunkId)) {
+                if (format == null) {
+                    return null;
+                }
+                long dataLength;
+                if (totalSize >= 0) {
+                    // 流式生成的 WAV 可能没有回填长度（0 或 0xFFFFFFFF），以实际长度为准
+                    long available = totalSize - bodyPosition;
+                    dataLength = chunkSize == 0 || chunkSize > available ? available : chunkSize;
+                } else {
+                    dataLength = chunkSize == 0 || chunkSize == 0xFFFFFFFFL ? -1 : chunkSize;
+                }
+                if (dataLength > 0) {
+                    // 去掉末尾不完整的采样帧
+                    dataLength -= dataLength % format.getBlockAlign();
+                }
+                format.dataOffset = bodyPosition;
+                format.dataLength = dataLength;
+                return format;
+            }
+            // RIFF 块按偶数字节对齐
+            position = bodyPosition + chunkSize + (chunkSize & 1);
+        }
+        return null;
+    }
+
+    /**
+     * 拼接格式相同的 PCM WAV 文件
+     * 按顺序把各文件的 data 块直接传输到输出文件，最后按实际数据长度重写 RIFF 头部
+     *
+     * @param inputs 输入文件（按顺序）
+     * @param formats 与输入文件一一对应的格式信息，必须都是 PCM 且格式相同
+     * @param output 输出文件
+     * @return 输出文件的 PCM 数据字节数
+     * @throws IOException 读写失败，或合并后超过 WAV 的 4GB 长度上限
+     */
+    public static long concat(List<File> inputs, List<WavFormat> formats, File output) throws IOException {
+        if (inputs.isEmpty() || inputs.size() != formats.size()) {
+            throw new IllegalArgumentException("输入文件与格式信息数量不一致");
+        }
+        WavFormat target = formats.get(0);
+        long totalData = 0;
+        for (WavFormat format : formats) {
+            if (!target.isSameFormat(format) || format.getAudioFormat() != FORMAT_PCM) {
+                throw new IllegalArgumentException("输入文件格式不一致或不是PCM，无法直接拼接");
+            }
+            totalData += format.getDataLength();
+        }
+        if (totalData > MAX_RIFF_DATA_SIZE) {
+            throw new IOException("合并后的音频超过WAV文件长度上限: " + totalData + " bytes");
+        }
+
+        try (FileChannel out = FileChannel.open(output.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // 先占位头部，数据写完后再回填长度
+            writeFully(out, buildHeader(target, 0), 0);
+            long outPosition = CANONICAL_HEADER_SIZE;
+            for (int i = 0; i < inputs.size(); i++) {
+                WavFormat format = formats.get(i);
+                try (FileChannel in = FileChannel.open(inputs.get(i).toPath(), StandardOpenOption.READ)) {
+                    long position = format.getDataOffset();
+                    long remaining = format.getDataLength();
+                    out.position(outPosition);
+                    while (remaining > 0) {
+                        long transferred = in.transferTo(position, remaining, out);
+                        if (transferred <= 0) {
+                            throw new IOException("音频文件在拼接过程中被截断: " + inputs.get(i).getAbsolutePath());
+                        }
+                        position += transferred;
+                        remaining -= transferred;
+                        outPosition += transferred;
+                    }
+                }
+            }
+            writeFully(out, buildHeader(target, totalData), 0);
+        }
+        return totalData;
+    }
+
+    /**
+     * 按 PCM 数据长度计算时长（毫秒）
+     */
+    public static int durationMillis(long dataBytes, WavFormat format) {
+        if (format.getByteRate() <= 0) {
+            return 0;
+        }
+        return (int) (dataBytes * 1000 / format.getByteRate());
+    }
+
+    private static WavFormat readFmtChunk(ByteSource source, long position, long chunkSize) throws IOException {
+        if (chunkSize < 16) {
+            return null;
+        }
+        int size = (int) Math.min(chunkSize, 40);
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        if (source.read(buffer, position) < size) {
+            return null;
+        }
+        WavFormat format = new WavFormat();
+        format.audioFormat = Short.toUnsignedInt(buffer.getShort(0));
+        format.channels = Short.toUnsignedInt(buffer.getShort(2));
+        format.sampleRate = buffer.getInt(4);
+        format.byteRate = buffer.getInt(8);
+        format.blockAlign = Short.toUnsignedInt(buffer.getShort(12));
+        format.bitsPerSample = Short.toUnsignedInt(buffer.getShort(14));
+        if (format.audioFormat == FORMAT_EXTENSIBLE && size >= 26) {
+            // 扩展格式：子格式 GUID 的前两个字节即实际格式编号
+            format.audioFormat = Short.toUnsignedInt(buffer.getShort(24));
+        }
+        if (format.channels <= 0 || format.blockAlign <= 0 || format.sampleRate <= 0) {
+            return null;
+        }
+        return format;
+    }
+
+    private static ByteBuffer buildHeader(WavFormat format, long dataLength) {
+        ByteBuffer header = ByteBuffer.allocate(CANONICAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("RIFF".getBytes(StandardCharsets.US_ASCII));
+        header.putInt((int) (36 + dataLength));
+        header.put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        header.put("fmt ".getBytes(StandardCharsets.US_ASCII));
+        header.putInt(16);
+        header.putShort((short) FORMAT_PCM);
+        header.putShort((short) format.getChannels());
+        header.putInt(format.getSampleRate());
+        header.putInt(format.getByteRate());
+        header.putShort((short) format.getBlockAlign());
+        header.putShort((short) format.getBitsPerSample());
+        header.put("data".getBytes(StandardCharsets.US_ASCII));
+        header.putInt((int) dataLength);
+        header.flip();
+        return header;
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    private static String fourCc(ByteBuffer buffer, int offset) {
+        byte[] bytes = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 按位置读取字节到 buffer，返回读取的字节数
+     */
+    @FunctionalInterface
+    private interface ByteSource {
+        int read(ByteBuffer buffer, long position) throws IOException;
+    }
+
+    /**
+     * WAV 格式信息
+     */
+    public static final class WavFormat {
+        private int audioFormat;
+        private int channels;
+        private int sampleRate;
+        private int byteRate;
+        private int blockAlign;
+        private int bitsPerSample;
+        private long dataOffset;
+        private long dataLength;
+
+        /**
+         * 编码、声道数、采样率、位深都相同时可以直接拼接
+         */
+        public boolean isSameFormat(WavFormat other) {
+            return other != null
+                    && audioFormat == other.audioFormat
+                    && channels == other.channels
+                    && sampleRate == other.sampleRate
+                    && byteRate == other.byteRate
+                    && blockAlign == other.blockAlign
+                    && bitsPerSample == other.bitsPerSample;
+        }
+
+        public int getAudioFormat() {
+            return audioFormat;
+        }
+
+        public int getChannels() {
+            return channels;
+        }
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        public int getByteRate() {
+            return byteRate;
+        }
+
+        public int getBlockAlign() {
+            return blockAlign;
+        }
+
+        public int getBitsPerSample() {
+            return bitsPerSample;
+        }
+
+        public long getDataOffset() {
+            return dataOffset;
+        }
+
+        /**
+         * PCM 数据字节数；按流开头解析且无法确定长度时为 -1
+         */
+        public long getDataLength() {
+            return dataLength;
+        }
+
+        @Override
+        public String toString() {
+            return "format=" + audioFormat + ", channels=" + channels + ", sampleRate=" + sampleRate
+                    + ", bitsPerSample=" + bitsPerSample;
+        }
+    }
+}
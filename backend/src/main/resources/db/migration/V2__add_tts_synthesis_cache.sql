@@ -0,0 +1,16 @@
+-- TTS合成结果缓存
+-- 1. 新增 tts_synthesis_cache 表：以合成内容指纹为键，记录已上传到OBS的音频
+-- 2. breaking_sentences 新增 synthesis_cache_key 列：记录发起合成时的指纹，回调完成后据此写入缓存
+
+CREATE TABLE IF NOT EXISTS `tts_synthesis_cache`  (
+    `cache_key` char(64) CHARACTER SET ascii COLLATE ascii_bin NOT NULL COMMENT 'SHA-256(ssml, voiceId, 语速, 音量, 音高, 阅读规则指纹)',
+    `audio_url` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL,
+    `audio_duration` int(0) NULL DEFAULT NULL,
+    `hit_count` bigint(0) NOT NULL DEFAULT 0,
+    `created_at` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `updated_at` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP(0),
+    PRIMARY KEY (`cache_key`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = 'TTS合成结果缓存表' ROW_FORMAT = Dynamic;
+
+ALTER TABLE `breaking_sentences`
+ADD COLUMN `synthesis_cache_key` char(64) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '发起合成时的缓存键' AFTER `job_id`;
@@ -0,0 +1,12 @@
+-- 集群共享的 MetaStudio 调用配额
+-- 每个后端节点定期续约一行租约，上报自身需求速率；各节点依据有效租约在全局配额内计算自己的份额
+
+CREATE TABLE IF NOT EXISTS `quota_leases`  (
+    `resource` varchar(64) CHARACTER SET ascii COLLATE ascii_bin NOT NULL COMMENT '配额资源，如 CREATE_TTS_JOB',
+    `node_id` varchar(128) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '后端节点标识',
+    `demand_rate` double NOT NULL DEFAULT 0 COMMENT '节点上报的需求速率（次/秒）',
+    `allocated_rate` double NOT NULL DEFAULT 0 COMMENT '节点当前使用的份额（次/秒）',
+    `expires_at` datetime(3) NOT NULL COMMENT '租约到期时间，过期视为节点下线',
+    `updated_at` datetime(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (`resource`, `node_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = 'MetaStudio调用配额租约表' ROW_FORMAT = Dynamic;
@@ -0,0 +1,58 @@
+-- 任务合成状态计数器
+-- 1. 新增 task_synthesis_counters 表：按任务记录各合成状态的断句数量
+-- 2. 由 breaking_sentences 的触发器在插入、状态变化、删除时原子增减计数，所有写入路径都无需额外处理
+-- 3. 按现有数据初始化计数
+-- 注意：开启 binlog 的实例创建触发器需要 TRIGGER 权限（部分实例还需要 log_bin_trust_function_creators=1）
+
+CREATE TABLE IF NOT EXISTS `task_synthesis_counters`  (
+    `task_id` bigint(0) NOT NULL,
+    `pending_count` int(0) NOT NULL DEFAULT 0 COMMENT '未合成断句数',
+    `processing_count` int(0) NOT NULL DEFAULT 0 COMMENT '合成中断句数',
+    `completed_count` int(0) NOT NULL DEFAULT 0 COMMENT '已合成断句数',
+    `failed_count` int(0) NOT NULL DEFAULT 0 COMMENT '合成失败断句数',
+    PRIMARY KEY (`task_id`) USING BTREE,
+    CONSTRAINT `fk_task_synthesis_counters_task` FOREIGN KEY (`task_id`) REFERENCES `tasks` (`task_id`) ON DELETE CASCADE ON UPDATE RESTRICT
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '任务合成状态计数表' ROW_FORMAT = Dynamic;
+
+INSERT INTO `task_synthesis_counters` (`task_id`, `pending_count`, `processing_count`, `completed_count`, `failed_count`)
+SELECT `task_id`,
+       SUM(`synthesis_status` = 0),
+       SUM(`synthesis_status` = 1),
+       SUM(`synthesis_status` = 2),
+       SUM(`synthesis_status` = 3)
+FROM `breaking_sentences`
+GROUP BY `task_id`
+ON DUPLICATE KEY UPDATE
+    `pending_count` = VALUES(`pending_count`),
+    `processing_count` = VALUES(`processing_count`),
+    `completed_count` = VALUES(`completed_count`),
+    `failed_count` = VALUES(`failed_count`);
+
+DROP TRIGGER IF EXISTS `trg_breaking_sentences_counter_insert`;
+CREATE TRIGGER `trg_breaking_sentences_counter_insert` AFTER INSERT ON `breaking_sentences` FOR EACH ROW
+INSERT INTO `task_synthesis_counters` (`task_id`, `pending_count`, `processing_count`, `completed_count`, `failed_count`)
+VALUES (NEW.`task_id`, NEW.`synthesis_status` = 0, NEW.`synthesis_status` = 1, NEW.`synthesis_status` = 2, NEW.`synthesis_status` = 3)
+ON DUPLICATE KEY UPDATE
+    `pending_count` = `pending_count` + VALUES(`pending_count`),
+    `processing_count` = `processing_count` + VALUES(`processing_count`),
+    `completed_count` = `completed_count` + VALUES(`completed_count`),
+    `failed_count` = `failed_count` + VALUES(`failed_count`);
+
+DROP TRIGGER IF EXISTS `trg_breaking_sentences_counter_update`;
+CREATE TRIGGER `trg_breaking_sentences_counter_update` AFTER UPDATE ON `breaking_sentences` FOR EACH ROW
+UPDATE `task_synthesis_counters`
+SET `pending_count` = `pending_count` + (NEW.`synthesis_status` = 0) - (OLD.`synthesis_status` = 0),
+    `processing_count` = `processing_count` + (NEW.`synthesis_status` = 1) - (OLD.`synthesis_status` = 1),
+    `completed_count` = `completed_count` + (NEW.`synthesis_status` = 2) - (OLD.`synthesis_status` = 2),
+    `failed_count` = `failed_count` + (NEW.`synthesis_status` = 3) - (OLD.`synthesis_status` = 3)
+WHERE `task_id` = NEW.`task_id`
+  AND OLD.`synthesis_status` <> NEW.`synthesis_status`;
+
+DROP TRIGGER IF EXISTS `trg_breaking_sentences_counter_delete`;
+CREATE TRIGGER `trg_breaking_sentences_counter_delete` AFTER DELETE ON `breaking_sentences` FOR EACH ROW
+UPDATE `task_synthesis_counters`
+SET `pending_count` = `pending_count` - (OLD.`synthesis_status` = 0),
+    `processing_count` = `processing_count` - (OLD.`synthesis_status` = 1),
+    `completed_count` = `completed_count` - (OLD.`synthesis_status` = 2),
+    `failed_count` = `failed_count` - (OLD.`synthesis_status` = 3)
+WHERE `task_id` = OLD.`task_id`;
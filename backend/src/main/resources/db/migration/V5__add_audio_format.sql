@@ -0,0 +1,10 @@
+-- 断句音频格式
+-- 1. breaking_sentences 新增 audio_format 列：TTS回调时音频统一转换为标准格式后记录的格式描述（如 pcm_s16le/16000/1），
+--    为空表示格式未知（历史数据或转换失败），合并时按文件头判断
+-- 2. tts_synthesis_cache 新增 audio_format 列：命中缓存复用音频时一并带上格式
+
+ALTER TABLE `breaking_sentences`
+ADD COLUMN `audio_format` varchar(32) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '音频格式：编码/采样率/声道数' AFTER `audio_duration`;
+
+ALTER TABLE `tts_synthesis_cache`
+ADD COLUMN `audio_format` varchar(32) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '音频格式：编码/采样率/声道数' AFTER `audio_duration`;
@@ -0,0 +1,7 @@
+-- 合并请求去重
+-- audio_merges 新增 inflight_key 列：合并中的记录保存 (任务, 断句集合, 输出参数) 的指纹，合并结束（完成或失败）后清空。
+-- 唯一索引保证同一指纹同时只有一条合并中的记录，重复的合并请求直接复用已有的 mergeId（多个 NULL 不冲突）
+
+ALTER TABLE `audio_merges`
+ADD COLUMN `inflight_key` char(64) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '合并中的去重指纹，合并结束后清空' AFTER `status`,
+ADD UNIQUE INDEX `uk_audio_inflight_key`(`inflight_key`) USING BTREE;
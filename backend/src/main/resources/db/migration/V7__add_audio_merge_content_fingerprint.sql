@@ -0,0 +1,7 @@
+-- 合并结果复用
+-- audio_merges 新增 content_fingerprint 列：合并完成时记录实际合并内容的指纹（按顺序的断句ID、音频地址、时长及输出参数），
+-- 之后的合并请求指纹相同时直接返回已有的合并结果，不再重新下载、合并、上传
+
+ALTER TABLE `audio_merges`
+ADD COLUMN `content_fingerprint` char(64) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '合并内容指纹' AFTER `inflight_key`,
+ADD INDEX `idx_audio_content_fingerprint`(`task_id`, `content_fingerprint`) USING BTREE;
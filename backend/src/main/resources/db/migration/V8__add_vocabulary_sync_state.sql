@@ -0,0 +1,10 @@
+-- 华为云自定义读法规则的集群共享同步状态
+-- 云端规则集全局唯一，各节点在查询或更新云端规则后写入其指纹；
+-- 节点的本地镜像指纹与此处不一致时说明规则已被其他节点修改，需要重新查询云端
+
+CREATE TABLE IF NOT EXISTS `vocabulary_sync_state`  (
+    `id` tinyint(0) NOT NULL COMMENT '固定为 1，只有一行',
+    `fingerprint` char(64) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '云端规则集指纹，云端状态未知时为空',
+    `updated_at` datetime(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (`id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '华为云读法规则同步状态表' ROW_FORMAT = Dynamic;
@@ -20,11 +20,15 @@ CREATE TABLE `audio_merges`  (
                                  `merged_audio_url` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL DEFAULT NULL,
                                  `audio_duration` int(0) NULL DEFAULT NULL,
                                  `status` tinyint(0) NOT NULL DEFAULT 1 COMMENT '1-合并中，2-合并完成，3-合并失败',
+                                 `inflight_key` char(64) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '合并中的去重指纹，合并结束后清空',
+                                 `content_fingerprint` char(64) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '合并内容指纹',
                                  `created_at` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP,
                                  `updated_at` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP(0),
                                  PRIMARY KEY (`merge_id`) USING BTREE,
                                  INDEX `idx_audio_task_id`(`task_id`) USING BTREE,
                                  INDEX `idx_audio_status`(`status`) USING BTREE,
+                                 UNIQUE INDEX `uk_audio_inflight_key`(`inflight_key`) USING BTREE,
+                                 INDEX `idx_audio_content_fingerprint`(`task_id`, `content_fingerprint`) USING BTREE,
                                  CONSTRAINT `fk_audio_merges_task` FOREIGN KEY (`task_id`) REFERENCES `tasks` (`task_id`) ON DELETE CASCADE ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 15 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '语音合并记录表' ROW_FORMAT = Dynamic;
 
@@ -42,8 +46,10 @@ CREATE TABLE `breaking_sentences`  (
                                        `synthesis_status` tinyint(0) NOT NULL DEFAULT 0 COMMENT '0-未合成，1-合成中，2-已合成，3-合成失败',
                                        `audio_url` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL DEFAULT NULL,
                                        `audio_duration` int(0) NULL DEFAULT NULL,
+                                       `audio_format` varchar(32) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '音频格式：编码/采样率/声道数',
                                        `ssml` text CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL,
                                        `job_id` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL DEFAULT NULL,
+                                       `synthesis_cache_key` char(64) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '发起合成时的缓存键',
                                        `created_at` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP,
                                        `updated_at` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP(0),
                                        PRIMARY KEY (`breaking_sentence_id`) USING BTREE,
@@ -118,6 +124,20 @@ CREATE TABLE `prosody_settings`  (
                                      PRIMARY KEY (`prosody_id`) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 9 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '局部语速合成设置表' ROW_FORMAT = Dynamic;
 
+-- ----------------------------
+-- Table structure for quota_leases
+-- ----------------------------
+DROP TABLE IF EXISTS `quota_leases`;
+CREATE TABLE `quota_leases`  (
+                                 `resource` varchar(64) CHARACTER SET ascii COLLATE ascii_bin NOT NULL COMMENT '配额资源，如 CREATE_TTS_JOB',
+                                 `node_id` varchar(128) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '后端节点标识',
+                                 `demand_rate` double NOT NULL DEFAULT 0 COMMENT '节点上报的需求速率（次/秒）',
+                                 `allocated_rate` double NOT NULL DEFAULT 0 COMMENT '节点当前使用的份额（次/秒）',
+                                 `expires_at` datetime(3) NOT NULL COMMENT '租约到期时间，过期视为节点下线',
+                                 `updated_at` datetime(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+                                 PRIMARY KEY (`resource`, `node_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = 'MetaStudio调用配额租约表' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for reading_rule_applications
 -- ----------------------------
@@ -170,6 +190,20 @@ CREATE TABLE `synthesis_settings`  (
                                        CONSTRAINT `fk_synthesis_breaking` FOREIGN KEY (`breaking_sentence_id`) REFERENCES `breaking_sentences` (`breaking_sentence_id`) ON DELETE CASCADE ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 72 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '合成设置表' ROW_FORMAT = Dynamic;
 
+-- ----------------------------
+-- Table structure for task_synthesis_counters
+-- ----------------------------
+DROP TABLE IF EXISTS `task_synthesis_counters`;
+CREATE TABLE `task_synthesis_counters`  (
+                                            `task_id` bigint(0) NOT NULL,
+                                            `pending_count` int(0) NOT NULL DEFAULT 0 COMMENT '未合成断句数',
+                                            `processing_count` int(0) NOT NULL DEFAULT 0 COMMENT '合成中断句数',
+                                            `completed_count` int(0) NOT NULL DEFAULT 0 COMMENT '已合成断句数',
+                                            `failed_count` int(0) NOT NULL DEFAULT 0 COMMENT '合成失败断句数',
+                                            PRIMARY KEY (`task_id`) USING BTREE,
+                                            CONSTRAINT `fk_task_synthesis_counters_task` FOREIGN KEY (`task_id`) REFERENCES `tasks` (`task_id`) ON DELETE CASCADE ON UPDATE RESTRICT
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '任务合成状态计数表' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for tasks
 -- ----------------------------
@@ -190,6 +224,32 @@ CREATE TABLE `tasks`  (
                           INDEX `idx_created_at`(`created_at`) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 11 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '任务表' ROW_FORMAT = Dynamic;
 
+-- ----------------------------
+-- Table structure for tts_synthesis_cache
+-- ----------------------------
+DROP TABLE IF EXISTS `tts_synthesis_cache`;
+CREATE TABLE `tts_synthesis_cache`  (
+                                        `cache_key` char(64) CHARACTER SET ascii COLLATE ascii_bin NOT NULL COMMENT 'SHA-256(ssml, voiceId, 语速, 音量, 音高, 阅读规则指纹)',
+                                        `audio_url` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL,
+                                        `audio_duration` int(0) NULL DEFAULT NULL,
+                                        `audio_format` varchar(32) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '音频格式：编码/采样率/声道数',
+                                        `hit_count` bigint(0) NOT NULL DEFAULT 0,
+                                        `created_at` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                        `updated_at` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP(0),
+                                        PRIMARY KEY (`cache_key`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = 'TTS合成结果缓存表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for vocabulary_sync_state
+-- ----------------------------
+DROP TABLE IF EXISTS `vocabulary_sync_state`;
+CREATE TABLE `vocabulary_sync_state`  (
+                                          `id` tinyint(0) NOT NULL COMMENT '固定为 1，只有一行',
+                                          `fingerprint` char(64) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '云端规则集指纹，云端状态未知时为空',
+                                          `updated_at` datetime(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+                                          PRIMARY KEY (`id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '华为云读法规则同步状态表' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for voice_configs
 -- ----------------------------
@@ -209,5 +269,38 @@ CREATE TABLE `voice_configs`  (
                                   INDEX `idx_voice_language`(`language`) USING BTREE
 ) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '音色资源表' ROW_FORMAT = Dynamic;
 
+-- ----------------------------
+-- Triggers structure for breaking_sentences
+-- 断句插入、合成状态变化、删除时原子增减 task_synthesis_counters 中的计数
+-- ----------------------------
+DROP TRIGGER IF EXISTS `trg_breaking_sentences_counter_insert`;
+CREATE TRIGGER `trg_breaking_sentences_counter_insert` AFTER INSERT ON `breaking_sentences` FOR EACH ROW
+INSERT INTO `task_synthesis_counters` (`task_id`, `pending_count`, `processing_count`, `completed_count`, `failed_count`)
+VALUES (NEW.`task_id`, NEW.`synthesis_status` = 0, NEW.`synthesis_status` = 1, NEW.`synthesis_status` = 2, NEW.`synthesis_status` = 3)
+ON DUPLICATE KEY UPDATE
+    `pending_count` = `pending_count` + VALUES(`pending_count`),
+    `processing_count` = `processing_count` + VALUES(`processing_count`),
+    `completed_count` = `completed_count` + VALUES(`completed_count`),
+    `failed_count` = `failed_count` + VALUES(`failed_count`);
+
+DROP TRIGGER IF EXISTS `trg_breaking_sentences_counter_update`;
+CREATE TRIGGER `trg_breaking_sentences_counter_update` AFTER UPDATE ON `breaking_sentences` FOR EACH ROW
+UPDATE `task_synthesis_counters`
+SET `pending_count` = `pending_count` + (NEW.`synthesis_status` = 0) - (OLD.`synthesis_status` = 0),
+    `processing_count` = `processing_count` + (NEW.`synthesis_status` = 1) - (OLD.`synthesis_status` = 1),
+    `completed_count` = `completed_count` + (NEW.`synthesis_status` = 2) - (OLD.`synthesis_status` = 2),
+    `failed_count` = `failed_count` + (NEW.`synthesis_status` = 3) - (OLD.`synthesis_status` = 3)
+WHERE `task_id` = NEW.`task_id`
+  AND OLD.`synthesis_status` <> NEW.`synthesis_status`;
+
+DROP TRIGGER IF EXISTS `trg_breaking_sentences_counter_delete`;
+CREATE TRIGGER `trg_breaking_sentences_counter_delete` AFTER DELETE ON `breaking_sentences` FOR EACH ROW
+UPDATE `task_synthesis_counters`
+SET `pending_count` = `pending_count` - (OLD.`synthesis_status` = 0),
+    `processing_count` = `processing_count` - (OLD.`synthesis_status` = 1),
+    `completed_count` = `completed_count` - (OLD.`synthesis_status` = 2),
+    `failed_count` = `failed_count` - (OLD.`synthesis_status` = 3)
+WHERE `task_id` = OLD.`task_id`;
+
 SET FOREIGN_KEY_CHECKS = 1;
 